@@ -0,0 +1,224 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+//memoizes path results in a size bounded LRU cache.
+//every edit made through this graph bumps a version counter, entries computed
+//under an older version count as misses and are dropped when looked up.
+//edits made to the wrapped graph directly, or through Edge.setWeight, are not seen
+public class CachingGraph<T> extends ForwardingGraph<T> {
+
+    private final int capacity;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<Key<T>, Cached<T>> cache;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingGraph(Graph<T> graph, int capacity) {
+        super(graph);
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key<T>, Cached<T>> eldest) {
+                if (size() <= CachingGraph.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void add(T node) {
+        graph.add(node);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        graph.connect(node1, node2, name, weight);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        graph.setConnectionWeight(node1, node2, weight);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        graph.setConnectionWeights(updates);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        graph.disconnect(node1, node2);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void remove(T node) {
+        graph.remove(node);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void removeAll(Collection<T> nodes) {
+        graph.removeAll(nodes);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public boolean pathExists(T from, T to) {
+        return findPath(from, to).exists();
+    }
+
+    @Override
+    public List<Edge<T>> getPath(T from, T to) {
+        return findPath(from, to).getPath();
+    }
+
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return findShortestPath(from, to).getPath();
+    }
+
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        Key<T> key = new Key<>(Mode.PATH, null, from, to);
+        long current = version.get();
+        PathResult<T> result = lookup(key, current);
+        if (result != null) return result;
+        result = graph.findPath(from, to);
+        store(key, current, result);
+        return result;
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        Key<T> key = new Key<>(Mode.SHORTEST, null, from, to);
+        long current = version.get();
+        PathResult<T> result = lookup(key, current);
+        if (result != null) return result;
+        result = graph.findShortestPath(from, to);
+        store(key, current, result);
+        return result;
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        Key<T> key = new Key<>(Mode.SHORTEST, heuristic, from, to);
+        long current = version.get();
+        PathResult<T> result = lookup(key, current);
+        if (result != null) return result;
+        result = graph.findShortestPath(from, to, heuristic);
+        store(key, current, result);
+        return result;
+    }
+
+    //shares entries with the plain heuristic search, a cancelled result is not stored
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        Key<T> key = new Key<>(Mode.SHORTEST, heuristic, from, to);
+        long current = version.get();
+        PathResult<T> result = lookup(key, current);
+        if (result != null) return result;
+        result = graph.findShortestPath(from, to, heuristic, listener, isCancelled);
+        if (!result.isCancelled()) store(key, current, result);
+        return result;
+    }
+
+    private synchronized PathResult<T> lookup(Key<T> key, long current) {
+        Cached<T> cached = cache.get(key);
+        if (cached != null && cached.version == current) {
+            hits++;
+            return cached.result;
+        }
+        if (cached != null) cache.remove(key);
+        misses++;
+        return null;
+    }
+
+    //results computed while an edit was running are stored under the version read before the search
+    private synchronized void store(Key<T> key, long computedAt, PathResult<T> result) {
+        if (computedAt == version.get()) cache.put(key, new Cached<>(computedAt, result));
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    //for tuning the capacity, e.g. "hits 120 misses 30 evictions 4 size 26/256"
+    public synchronized String getStatistics() {
+        return "hits " + hits + " misses " + misses + " evictions " + evictions + " size " + cache.size() + "/" + capacity;
+    }
+
+    private enum Mode { PATH, SHORTEST }
+
+    private static class Key<T> {
+        private final Mode mode;
+        private final Heuristic<T> heuristic;
+        private final T from;
+        private final T to;
+
+        Key(Mode mode, Heuristic<T> heuristic, T from, T to) {
+            this.mode = mode;
+            this.heuristic = heuristic;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key<?> key = (Key<?>) o;
+            return mode == key.mode && heuristic == key.heuristic && Objects.equals(from, key.from) && Objects.equals(to, key.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mode, System.identityHashCode(heuristic), from, to);
+        }
+    }
+
+    private static class Cached<T> {
+        private final long version;
+        private final PathResult<T> result;
+
+        Cached(long version, PathResult<T> result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+//Graph that can be queried from many threads while others edit it.
+//reads walk ConcurrentHashMaps and may see connections added or removed during a search.
+//mutations lock the stripes of the nodes they touch, always in stripe order so they can't deadlock.
+//path searches and the edge reads share a read lock that setConnectionWeights takes for writing,
+//so they see either none or all of a batch of new weights. weights are changed by replacing
+//the two Edge objects, an edge already handed out keeps the weight it had
+public class ConcurrentGraph<T> implements Graph<T>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int STRIPES = 64;
+
+    private final Map<T, Map<T, Edge<T>>> nodes = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    public ConcurrentGraph() {
+        for (int i = 0; i < locks.length; i++) locks[i] = new ReentrantLock();
+    }
+
+    @Override
+    public String toString() {
+        List<String> finalList = new ArrayList<>();
+        nodes.forEach((node, adjacent) -> finalList.add("Name: " + node + " Edges: " + adjacent.values()));
+        return finalList.toString();
+    }
+
+    @Override
+    public void add(T node) {
+        nodes.putIfAbsent(node, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Negative weight");
+        lock(node1, node2);
+        try {
+            Map<T, Edge<T>> adjacent1 = nodes.get(node1);
+            Map<T, Edge<T>> adjacent2 = nodes.get(node2);
+            if (adjacent1 == null || adjacent2 == null) throw new NoSuchElementException("Node doesn't exist");
+            if (adjacent1.containsKey(node2) || adjacent2.containsKey(node1))
+                throw new IllegalStateException("Edge already exists");
+            adjacent1.put(node2, new Edge<>(name, node1, node2, weight));
+            adjacent2.put(node1, new Edge<>(name, node2, node1, weight));
+        } finally {
+            unlock(node1, node2);
+        }
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        lock(node1, node2);
+        try {
+            if (!nodes.containsKey(node1) || !nodes.containsKey(node2))
+                throw new NoSuchElementException("Nodes does not exist");
+            Edge<T> e1 = nodes.get(node1).get(node2);
+            Edge<T> e2 = nodes.get(node2).get(node1);
+            if (e1 == null || e2 == null) throw new NoSuchElementException("Edge does not exist");
+            if (weight < 0) throw new IllegalArgumentException("Weight must be a positive integer.");
+            nodes.get(node1).put(node2, reweigh(e1, weight));
+            nodes.get(node2).put(node1, reweigh(e2, weight));
+        } finally {
+            unlock(node1, node2);
+        }
+    }
+
+    //locks every stripe the batch touches and keeps searches out while the weights change
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        boolean[] used = new boolean[STRIPES];
+        for (WeightUpdate<T> u : updates) {
+            if (u.getWeight() < 0) throw new IllegalArgumentException("Weight must be a positive integer.");
+            used[stripe(u.getFrom())] = true;
+            used[stripe(u.getTo())] = true;
+        }
+        batchLock.writeLock().lock();
+        try {
+            for (int s = 0; s < STRIPES; s++) if (used[s]) locks[s].lock();
+            try {
+                for (WeightUpdate<T> u : updates) {
+                    Map<T, Edge<T>> adjacent1 = nodes.get(u.getFrom());
+                    Map<T, Edge<T>> adjacent2 = nodes.get(u.getTo());
+                    if (adjacent1 == null || adjacent2 == null) throw new NoSuchElementException("Nodes does not exist");
+                    if (adjacent1.get(u.getTo()) == null || adjacent2.get(u.getFrom()) == null)
+                        throw new NoSuchElementException("Edge does not exist");
+                }
+                for (WeightUpdate<T> u : updates) {
+                    Map<T, Edge<T>> adjacent1 = nodes.get(u.getFrom());
+                    Map<T, Edge<T>> adjacent2 = nodes.get(u.getTo());
+                    adjacent1.put(u.getTo(), reweigh(adjacent1.get(u.getTo()), u.getWeight()));
+                    adjacent2.put(u.getFrom(), reweigh(adjacent2.get(u.getFrom()), u.getWeight()));
+                }
+            } finally {
+                for (int s = STRIPES - 1; s >= 0; s--) if (used[s]) locks[s].unlock();
+            }
+        } finally {
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+
+    //a copy made under the read lock, so it holds none or all of a batch of weights
+    @Override
+    public Collection<Edge<T>> getEdgesFrom(T node) {
+        batchLock.readLock().lock();
+        try {
+            Map<T, Edge<T>> adjacent = nodes.get(node);
+            if (adjacent == null) throw new NoSuchElementException("Nodes does not exist");
+            return List.copyOf(adjacent.values());
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    //runs action under the read lock, it must not call setConnectionWeights
+    @Override
+    public void forEachEdge(T node, Consumer<Edge<T>> action) {
+        batchLock.readLock().lock();
+        try {
+            Map<T, Edge<T>> adjacent = nodes.get(node);
+            if (adjacent == null) throw new NoSuchElementException("Nodes does not exist");
+            adjacent.values().forEach(action);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Edge<T> getEdgeBetween(T node1, T node2) {
+        batchLock.readLock().lock();
+        try {
+            Map<T, Edge<T>> adjacent1 = nodes.get(node1);
+            Map<T, Edge<T>> adjacent2 = nodes.get(node2);
+            if (adjacent1 == null || adjacent2 == null) throw new NoSuchElementException("Nodes does not exist");
+            Edge<T> edge = adjacent1.get(node2);
+            return edge != null ? edge : adjacent2.get(node1);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    private static <T> Edge<T> reweigh(Edge<T> edge, int weight) {
+        return new Edge<>(edge.getName(), edge.getSrc(), edge.getDestination(), weight);
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        lock(node1, node2);
+        try {
+            if (!nodes.containsKey(node1) || !nodes.containsKey(node2))
+                throw new NoSuchElementException("Nodes does not exist");
+            Edge<T> e1 = nodes.get(node1).remove(node2);
+            Edge<T> e2 = nodes.get(node2).remove(node1);
+            if (e1 == null && e2 == null) throw new IllegalStateException("Edge does not exist");
+        } finally {
+            unlock(node1, node2);
+        }
+    }
+
+    //locks node and every neighbour, retries if a connection was added before all stripes were held
+    @Override
+    public void remove(T node) {
+        while (true) {
+            Map<T, Edge<T>> adjacent = nodes.get(node);
+            if (adjacent == null) throw new NoSuchElementException("Nodes does not exist");
+            int[] stripes = stripesOf(node, adjacent.keySet());
+            for (int s : stripes) locks[s].lock();
+            try {
+                if (nodes.get(node) != adjacent) continue;
+                if (!covers(stripes, adjacent.keySet())) continue;
+                nodes.remove(node);
+                for (T neighbour : adjacent.keySet()) {
+                    Map<T, Edge<T>> back = nodes.get(neighbour);
+                    if (back != null) back.remove(node);
+                }
+                return;
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<T> toRemove) {
+        for (T node : toRemove)
+            if (!nodes.containsKey(node)) throw new NoSuchElementException("Nodes does not exist");
+        for (T node : new HashSet<>(toRemove)) {
+            if (nodes.containsKey(node)) remove(node);
+        }
+    }
+
+    @Override
+    public boolean pathExists(T from, T to) {
+        return findPath(from, to).exists();
+    }
+
+    @Override
+    public List<Edge<T>> getPath(T from, T to) {
+        return findPath(from, to).getPath();
+    }
+
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return findShortestPath(from, to).getPath();
+    }
+
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        batchLock.readLock().lock();
+        try {
+            return PathSearch.find(this, from, to);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        return findShortestPath(from, to, Heuristic.zero());
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        batchLock.readLock().lock();
+        try {
+            return ShortestPath.find(this, from, to, heuristic);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    //batches wait for the whole search, cancelling it lets them through sooner
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        batchLock.readLock().lock();
+        try {
+            return ShortestPath.find(this, from, to, heuristic, listener, isCancelled);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    private int stripe(T node) {
+        int h = node.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private void lock(T node1, T node2) {
+        int s1 = stripe(node1);
+        int s2 = stripe(node2);
+        locks[Math.min(s1, s2)].lock();
+        if (s1 != s2) locks[Math.max(s1, s2)].lock();
+    }
+
+    private void unlock(T node1, T node2) {
+        int s1 = stripe(node1);
+        int s2 = stripe(node2);
+        if (s1 != s2) locks[Math.max(s1, s2)].unlock();
+        locks[Math.min(s1, s2)].unlock();
+    }
+
+    //distinct stripes of node and its neighbours in ascending order
+    private int[] stripesOf(T node, Collection<T> neighbours) {
+        boolean[] used = new boolean[STRIPES];
+        used[stripe(node)] = true;
+        for (T n : neighbours) used[stripe(n)] = true;
+        int count = 0;
+        for (boolean u : used) if (u) count++;
+        int[] stripes = new int[count];
+        for (int i = 0, j = 0; i < STRIPES; i++) if (used[i]) stripes[j++] = i;
+        return stripes;
+    }
+
+    private boolean covers(int[] stripes, Collection<T> neighbours) {
+        for (T n : neighbours) if (Arrays.binarySearch(stripes, stripe(n)) < 0) return false;
+        return true;
+    }
+}
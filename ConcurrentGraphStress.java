@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Stress test for ConcurrentGraph: route queries on every core while one editor
+ thread keeps calling setConnectionWeight, disconnect, connect and setConnectionWeights.
+ Each batch gives the two vertical roads of a probe node the same new weight, readers
+ check that getEdgesFrom never shows them half updated. Afterwards every edge must be mirrored.
+ Throughput is measured by ConcurrentGraphBenchmark in the jmh module, not here.
+ Usage: java ConcurrentGraphStress [side of grid] [seconds]
+ */
+public class ConcurrentGraphStress {
+
+	private final int side;
+	private final long millis;
+	private final ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+	private final List<Integer> probes = new ArrayList<>();
+
+	public ConcurrentGraphStress(int side, long millis) {
+		this.side = side;
+		this.millis = millis;
+		for (int i = 0; i < side * side; i++) graph.add(i);
+		for (int r = 0; r < side; r++)
+			for (int c = 0; c < side; c++) {
+				int n = r * side + c;
+				if (c + 1 < side) graph.connect(n, n + 1, "Road", 1 + (n % 7));
+				if (r + 1 < side) graph.connect(n, n + side, "Road", c == 0 ? 1 : 1 + (n % 5));
+			}
+		//nodes in the first column with a road up and down, both start at weight 1
+		for (int r = 1; r + 1 < side; r += 2) probes.add(r * side);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+		var app = new ConcurrentGraphStress(side, seconds * 1000);
+		int readers = Math.max(2, Runtime.getRuntime().availableProcessors());
+		long checks = app.run(readers);
+		app.checkConsistent();
+		System.out.printf("%n ==> %d reads on %d threads saw no half applied batch, graph consistent. <== %n", checks, readers);
+	}
+
+	//runs readers plus one editor for millis, returns the number of probe reads made
+	private long run(int readers) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+		AtomicBoolean running = new AtomicBoolean(true);
+		LongAdder checks = new LongAdder();
+		int n = side * side;
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int t = 0; t < readers; t++) {
+			long seed = t;
+			tasks.add(pool.submit(() -> {
+				Random random = new Random(seed);
+				while (running.get()) {
+					if (graph.findShortestPath(random.nextInt(n), random.nextInt(n)) == null)
+						throw new Exception("Error: grid came apart during edits.");
+					checkProbe(probes.get(random.nextInt(probes.size())));
+					checks.increment();
+				}
+				return null;
+			}));
+		}
+		tasks.add(pool.submit(() -> {
+			Random random = new Random(-1);
+			while (running.get()) {
+				int a = random.nextInt(n - 1);
+				int b = a % side + 1 < side ? a + 1 : a;
+				if (a == b) continue;
+				graph.setConnectionWeight(a, b, 1 + random.nextInt(9));
+				graph.disconnect(a, b);
+				graph.connect(a, b, "Road", 1 + random.nextInt(9));
+				List<WeightUpdate<Integer>> batch = new ArrayList<>();
+				for (int i = 0; i < 8; i++) {
+					int p = probes.get(random.nextInt(probes.size()));
+					int w = 1 + random.nextInt(9);
+					batch.add(new WeightUpdate<>(p - side, p, w));
+					batch.add(new WeightUpdate<>(p, p + side, w));
+				}
+				for (int i = 0; i < 16; i++) {
+					int v = random.nextInt(n - side);
+					if (v % side != 0) batch.add(new WeightUpdate<>(v, v + side, 1 + random.nextInt(9)));
+				}
+				graph.setConnectionWeights(batch);
+			}
+			return null;
+		}));
+		Thread.sleep(millis);
+		running.set(false);
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			}
+		}
+		return checks.sum();
+	}
+
+	//the road up and the road down from a probe always carry the same weight
+	private void checkProbe(int probe) throws Exception {
+		int up = -1;
+		int down = -1;
+		for (Edge<Integer> e : graph.getEdgesFrom(probe)) {
+			if (e.getDestination() == probe - side) up = e.getWeight();
+			if (e.getDestination() == probe + side) down = e.getWeight();
+		}
+		if (up != down) throw new Exception("Error: probe " + probe + " has roads of " + up + " and " + down + ", a batch was half applied.");
+	}
+
+	private void checkConsistent() throws Exception {
+		for (Integer node : graph.getNodes()) {
+			for (Edge<Integer> e : graph.getEdgesFrom(node)) {
+				Edge<Integer> back = graph.getEdgesFrom(e.getDestination()).stream()
+						.filter(b -> b.getDestination().equals(node)).findFirst().orElse(null);
+				if (back == null || back.getWeight() != e.getWeight())
+					throw new Exception("Error: edge " + node + " -> " + e.getDestination() + " is not mirrored.");
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+//all pairs travel times, one Dijkstra per node run in parallel on a ForkJoinPool.
+//distances and first hops live in two flat int[n * n] arrays, so a lookup is O(1)
+//and a path is rebuilt in O(path length). the table is a snapshot, paths are made
+//from the connections as they were when it was computed, later edits to the graph
+//are not reflected
+public class DistanceTable<T> {
+
+    public static final int UNREACHABLE = -1;
+
+    private final List<T> nodes;
+    private final Map<T, Integer> index;
+    private final int n;
+    private final int[] dist;
+    //slot in targets of the first edge of each path, UNREACHABLE where there is none
+    private final int[] hop;
+
+    //adjacency copied into arrays so the searches run without boxing
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final String[] names;
+
+    private DistanceTable(Graph<T> graph) {
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.n = nodes.size();
+        if ((long) n * n > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many nodes for a distance table: " + n);
+        this.index = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) index.put(nodes.get(i), i);
+        this.offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) offsets[i + 1] = offsets[i] + graph.getEdgesFrom(nodes.get(i)).size();
+        this.targets = new int[offsets[n]];
+        this.weights = new int[offsets[n]];
+        this.names = new String[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int[] k = {offsets[i]};
+            graph.forEachEdge(nodes.get(i), e -> {
+                targets[k[0]] = index.get(e.getDestination());
+                names[k[0]] = e.getName();
+                weights[k[0]++] = e.getWeight();
+            });
+        }
+        this.dist = new int[n * n];
+        this.hop = new int[n * n];
+    }
+
+    public static <T> DistanceTable<T> compute(Graph<T> graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    public static <T> DistanceTable<T> compute(Graph<T> graph, ForkJoinPool pool) {
+        DistanceTable<T> table = new DistanceTable<>(graph);
+        try {
+            pool.submit(() -> IntStream.range(0, table.n).parallel().forEach(table::row)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing distances", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Computing distances failed", e.getCause());
+        }
+        return table;
+    }
+
+    //single source Dijkstra from s, fills row s of dist and hop
+    private void row(int s) {
+        int base = s * n;
+        Arrays.fill(dist, base, base + n, UNREACHABLE);
+        Arrays.fill(hop, base, base + n, UNREACHABLE);
+        boolean[] settled = new boolean[n];
+        IntHeap heap = new IntHeap();
+        dist[base + s] = 0;
+        heap.push(0, s);
+        while (!heap.isEmpty()) {
+            int where = heap.peekNode();
+            heap.pop();
+            if (settled[where]) continue;
+            settled[where] = true;
+            int cost = dist[base + where];
+            for (int k = offsets[where]; k < offsets[where + 1]; k++) {
+                int to = targets[k];
+                if (settled[to]) continue;
+                int c = IntHeap.add(cost, weights[k]);
+                int known = dist[base + to];
+                if (known == UNREACHABLE || c < known) {
+                    dist[base + to] = c;
+                    hop[base + to] = where == s ? k : hop[base + where];
+                    heap.push(c, to);
+                }
+            }
+        }
+    }
+
+    public List<T> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    //total weight of the cheapest path, UNREACHABLE if there is none
+    public int distance(T from, T to) {
+        return dist[indexOf(from) * n + indexOf(to)];
+    }
+
+    public boolean contains(T node) {
+        return index.containsKey(node);
+    }
+
+    public boolean pathExists(T from, T to) {
+        return distance(from, to) != UNREACHABLE;
+    }
+
+    //follows first hops, null if no path exists. the edges are new objects
+    //with the names and weights the table was computed from
+    public List<Edge<T>> getPath(T from, T to) {
+        int s = indexOf(from);
+        int t = indexOf(to);
+        if (dist[s * n + t] == UNREACHABLE) return null;
+        List<Edge<T>> path = new ArrayList<>();
+        int where = s;
+        while (where != t) {
+            int k = hop[where * n + t];
+            path.add(new Edge<>(names[k], nodes.get(where), nodes.get(targets[k]), weights[k]));
+            where = targets[k];
+        }
+        return path;
+    }
+
+    public PathResult<T> findShortestPath(T from, T to) {
+        List<Edge<T>> path = getPath(from, to);
+        return path != null ? PathResult.of(path) : PathResult.none();
+    }
+
+    private int indexOf(T node) {
+        Integer i = index.get(node);
+        if (i == null) throw new NoSuchElementException("Nodes does not exist");
+        return i;
+    }
+}
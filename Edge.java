@@ -11,7 +11,8 @@ public class Edge<T> implements Serializable, Comparable<Edge<T>> {
     private final String name;
     private final T src;
     private final T dest;
-    private int weight;
+    //volatile so readers on other threads see weights set with setWeight
+    private volatile int weight;
 
     public Edge(String name, T src, T dest, int weight) {
         this.name = name;
@@ -61,8 +62,9 @@ public class Edge<T> implements Serializable, Comparable<Edge<T>> {
         return Objects.equals(name, edge.name) && Objects.equals(src, edge.src) && Objects.equals(dest, edge.dest);
     }
 
+    //weight is left out so a weight change can't move the edge in a hashed collection
     @Override
     public int hashCode() {
-        return Objects.hash(name, src, dest, weight);
+        return Objects.hash(name, src, dest);
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+//passes every call on to another Graph, decorators extend this and override what they need
+public abstract class ForwardingGraph<T> implements Graph<T> {
+
+    protected final Graph<T> graph;
+
+    protected ForwardingGraph(Graph<T> graph) {
+        if (graph == null) throw new NullPointerException("Graph must not be null");
+        this.graph = graph;
+    }
+
+    public Graph<T> getDelegate() {
+        return graph;
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+
+    @Override
+    public void add(T node) {
+        graph.add(node);
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        graph.connect(node1, node2, name, weight);
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        graph.setConnectionWeight(node1, node2, weight);
+    }
+
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        graph.setConnectionWeights(updates);
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return graph.getNodes();
+    }
+
+    @Override
+    public Collection<Edge<T>> getEdgesFrom(T node) {
+        return graph.getEdgesFrom(node);
+    }
+
+    @Override
+    public void forEachEdge(T node, Consumer<Edge<T>> action) {
+        graph.forEachEdge(node, action);
+    }
+
+    @Override
+    public Edge<T> getEdgeBetween(T node1, T node2) {
+        return graph.getEdgeBetween(node1, node2);
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        graph.disconnect(node1, node2);
+    }
+
+    @Override
+    public void remove(T node) {
+        graph.remove(node);
+    }
+
+    @Override
+    public void removeAll(Collection<T> nodes) {
+        graph.removeAll(nodes);
+    }
+
+    @Override
+    public boolean pathExists(T from, T to) {
+        return graph.pathExists(from, to);
+    }
+
+    @Override
+    public List<Edge<T>> getPath(T from, T to) {
+        return graph.getPath(from, to);
+    }
+
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return graph.getShortestPath(from, to);
+    }
+
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        return graph.findPath(from, to);
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        return graph.findShortestPath(from, to);
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        return graph.findShortestPath(from, to, heuristic);
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        return graph.findShortestPath(from, to, heuristic, listener, isCancelled);
+    }
+}
@@ -1,6 +1,8 @@
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public interface Graph<T> {
 
@@ -9,18 +11,35 @@ public interface Graph<T> {
     void connect(T node1, T node2, String name, int weight);
     
     void setConnectionWeight(T node1, T node2, int weight);
+
+    void setConnectionWeights(Collection<WeightUpdate<T>> updates);
     
     Set<T> getNodes();
     
     Collection<Edge<T>> getEdgesFrom(T node);
+
+    void forEachEdge(T node, Consumer<Edge<T>> action);
     
     Edge<T> getEdgeBetween(T node1, T node2);
     
     void disconnect(T node1, T node2);
     
     void remove(T node);
+
+    void removeAll(Collection<T> nodes);
     
     boolean pathExists(T from, T to);
     
     List<Edge<T>> getPath(T from, T to);
+
+    List<Edge<T>> getShortestPath(T from, T to);
+
+    PathResult<T> findPath(T from, T to);
+
+    PathResult<T> findShortestPath(T from, T to);
+
+    PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic);
+
+    //listener hears about every settled node, isCancelled stops the search with PathResult.cancelled
+    PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled);
 }
@@ -0,0 +1,130 @@
+import java.util.*;
+
+//collects nodes and edges in batches and produces a finished ListGraph.
+//build() counts degrees first so every map is created at its final size, then
+//checks missing nodes, negative weights and duplicates while inserting each edge once.
+//connections are undirected, so a-b and b-a count as duplicates of each other.
+//buildInto fills any other Graph, such as a ConcurrentGraph, with the same checks
+public class GraphBuilder<T> {
+
+    private final Map<T, Integer> index;
+    private final List<T> nodes;
+
+    private final List<T> sources;
+    private final List<T> destinations;
+    private final List<String> names;
+    private int[] weights;
+
+    private boolean mergeMirrored;
+
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    public GraphBuilder(int expectedNodes, int expectedEdges) {
+        index = new HashMap<>((int) (expectedNodes / 0.75) + 1);
+        nodes = new ArrayList<>(expectedNodes);
+        sources = new ArrayList<>(expectedEdges);
+        destinations = new ArrayList<>(expectedEdges);
+        names = new ArrayList<>(expectedEdges);
+        weights = new int[Math.max(16, expectedEdges)];
+    }
+
+    //adding a node twice is ignored, as in Graph.add
+    public GraphBuilder<T> addNode(T node) {
+        if (index.putIfAbsent(node, nodes.size()) == null) nodes.add(node);
+        return this;
+    }
+
+    public GraphBuilder<T> addNodes(Collection<? extends T> batch) {
+        for (T node : batch) addNode(node);
+        return this;
+    }
+
+    //edges may be added before their nodes, they are only checked in build
+    public GraphBuilder<T> addEdge(T from, T to, String name, int weight) {
+        int i = sources.size();
+        if (i == weights.length) weights = Arrays.copyOf(weights, i * 2);
+        sources.add(from);
+        destinations.add(to);
+        names.add(name);
+        weights[i] = weight;
+        return this;
+    }
+
+    //adds every edge of the graph once
+    public GraphBuilder<T> addEdges(Graph<T> graph) {
+        Set<T> done = new HashSet<>();
+        for (T node : graph.getNodes()) {
+            graph.forEachEdge(node, e -> {
+                if (!done.contains(e.getDestination())) addEdge(e.getSrc(), e.getDestination(), e.getName(), e.getWeight());
+            });
+            done.add(node);
+        }
+        return this;
+    }
+
+    //a .graph file lists connections from both ends. with this set an edge that repeats one
+    //already added, in either direction with the same name and weight, is dropped, a repeat
+    //with another name or weight is still an error
+    public GraphBuilder<T> setMergeMirrored(boolean mergeMirrored) {
+        this.mergeMirrored = mergeMirrored;
+        return this;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return sources.size();
+    }
+
+    //throws the same exceptions as Graph.connect, with the position of the offending edge
+    public ListGraph<T> build() {
+        int[] degree = new int[nodes.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            degree[indexOf(sources.get(i), i)]++;
+            degree[indexOf(destinations.get(i), i)]++;
+        }
+        ListGraph<T> graph = new ListGraph<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) graph.add(nodes.get(i), degree[i]);
+        for (int i = 0; i < sources.size(); i++) {
+            T from = sources.get(i);
+            T to = destinations.get(i);
+            if (weights[i] < 0) throw new IllegalArgumentException("Edge " + i + ": Negative weight");
+            if (!graph.link(from, to, names.get(i), weights[i])) repeated(graph.getEdgeBetween(from, to), i);
+        }
+        return graph;
+    }
+
+    //adds the nodes and edges to graph through the Graph interface, for graphs build() can't
+    //presize. graph should be empty, the edges are checked as in build
+    public <G extends Graph<T>> G buildInto(G graph) {
+        for (T node : nodes) graph.add(node);
+        for (int i = 0; i < sources.size(); i++) {
+            T from = sources.get(i);
+            T to = destinations.get(i);
+            indexOf(from, i);
+            indexOf(to, i);
+            if (weights[i] < 0) throw new IllegalArgumentException("Edge " + i + ": Negative weight");
+            Edge<T> existing = graph.getEdgeBetween(from, to);
+            if (existing != null) repeated(existing, i);
+            else graph.connect(from, to, names.get(i), weights[i]);
+        }
+        return graph;
+    }
+
+    //edge i joins two nodes that are already connected, fine only if it mirrors that connection
+    private void repeated(Edge<T> existing, int i) {
+        if (!mergeMirrored) throw new IllegalStateException("Edge " + i + ": Edge already exists");
+        if (existing.getWeight() != weights[i] || !existing.getName().equals(names.get(i)))
+            throw new IllegalStateException("Edge " + i + ": Conflicting connection " + sources.get(i) + ";" + destinations.get(i));
+    }
+
+    private int indexOf(T node, int edge) {
+        Integer i = index.get(node);
+        if (i == null) throw new NoSuchElementException("Edge " + edge + ": Node doesn't exist");
+        return i;
+    }
+}
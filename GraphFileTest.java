@@ -0,0 +1,136 @@
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ Writes maps with GraphWriter and reads them back with GraphLoader: a generated
+ map with coordinates, the same map written sorted and with every connection
+ doubled like older saves, and names with spaces and non-ASCII letters.
+ The loaded graph must have the same places, coordinates and connections.
+ */
+public class GraphFileTest {
+
+	private static final String IMAGE = "file:europa.gif";
+
+	public static void main(String[] args) throws Exception {
+		var app = new GraphFileTest();
+		app.test1_generated_map();
+		app.test2_sorted_and_doubled();
+		app.test3_odd_names();
+		System.out.printf("%n ==> GraphWriter output loads back into the same graph. <== %n");
+	}
+
+	private void test1_generated_map() throws Exception {
+		MapGenerator generator = new MapGenerator(MapGenerator.Kind.GEOMETRIC, 2000);
+		generator.setSeed(3);
+		Graph<Pin> graph = generator.generate(new PinFormat());
+		compare(graph, roundTrip(graph, new GraphWriter<>(new PinFormat())));
+	}
+
+	private void test2_sorted_and_doubled() throws Exception {
+		MapGenerator generator = new MapGenerator(MapGenerator.Kind.SCALE_FREE, 1000);
+		generator.setSeed(5);
+		Graph<Pin> graph = generator.generate(new PinFormat());
+		GraphWriter<Pin> sorted = new GraphWriter<>(new PinFormat());
+		sorted.setSorted(true);
+		compare(graph, roundTrip(graph, sorted));
+		GraphWriter<Pin> doubled = new GraphWriter<>(new PinFormat());
+		doubled.setLegacyDoubled(true);
+		compare(graph, roundTrip(graph, doubled));
+	}
+
+	private void test3_odd_names() throws Exception {
+		Graph<Pin> graph = new ListGraph<>();
+		Pin a = new Pin("São Paulo", 12.25, -3.5);
+		Pin b = new Pin("Den Haag", 0, 1e-3);
+		Pin c = new Pin("Zürich Hbf", 1e6, 42);
+		graph.add(a);
+		graph.add(b);
+		graph.add(c);
+		graph.connect(a, b, "Night Train", 12);
+		graph.connect(b, c, "Ferry to the Ö", 0);
+		graph.connect(a, c, "Airplane", Integer.MAX_VALUE);
+		compare(graph, roundTrip(graph, new GraphWriter<>(new PinFormat())));
+	}
+
+	private Graph<Pin> roundTrip(Graph<Pin> graph, GraphWriter<Pin> writer) throws Exception {
+		StringWriter out = new StringWriter();
+		writer.write(IMAGE, graph, out);
+		Graph<Pin> loaded = new ListGraph<>();
+		String image = new GraphLoader<>(new PinFormat()).load(new StringReader(out.toString()), loaded);
+		if (!image.equals(IMAGE))
+			throw new Exception("Error: image should load back as " + IMAGE + ", was " + image);
+		return loaded;
+	}
+
+	private void compare(Graph<Pin> expected, Graph<Pin> actual) throws Exception {
+		if (expected.getNodes().size() != actual.getNodes().size())
+			throw new Exception("Error: expected " + expected.getNodes().size() + " places, loaded " + actual.getNodes().size());
+		Map<String, Pin> byName = new HashMap<>();
+		for (Pin p : actual.getNodes()) byName.put(p.name, p);
+		int edges = 0;
+		for (Pin p : expected.getNodes()) {
+			Pin q = byName.get(p.name);
+			if (q == null)
+				throw new Exception("Error: place " + p.name + " is missing after loading.");
+			if (q.x != p.x || q.y != p.y)
+				throw new Exception("Error: " + p.name + " should be at " + p.x + ";" + p.y + ", was " + q.x + ";" + q.y);
+			for (Edge<Pin> e : expected.getEdgesFrom(p)) {
+				Edge<Pin> f = actual.getEdgeBetween(q, byName.get(e.getDestination().name));
+				if (f == null || !f.getName().equals(e.getName()) || f.getWeight() != e.getWeight())
+					throw new Exception("Error: " + p.name + " - " + e.getDestination().name + " should be "
+							+ e.getName() + " " + e.getWeight() + " after loading.");
+				edges++;
+			}
+		}
+		int loaded = 0;
+		for (Pin q : actual.getNodes()) loaded += actual.getEdgesFrom(q).size();
+		if (loaded != edges)
+			throw new Exception("Error: expected " + edges + " directed edges, loaded " + loaded);
+	}
+
+	//a place without JavaFX, equal by name like Place
+	private static class Pin {
+		final String name;
+		final double x;
+		final double y;
+
+		Pin(String name, double x, double y) {
+			this.name = name;
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Pin && ((Pin) o).name.equals(name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+	}
+
+	private static class PinFormat implements NodeFormat<Pin> {
+		@Override
+		public Pin create(String name, double x, double y) {
+			return new Pin(name, x, y);
+		}
+
+		@Override
+		public String getName(Pin node) {
+			return node.name;
+		}
+
+		@Override
+		public double getX(Pin node) {
+			return node.x;
+		}
+
+		@Override
+		public double getY(Pin node) {
+			return node.y;
+		}
+	}
+}
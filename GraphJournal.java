@@ -0,0 +1,348 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+//append only log of edits made on top of a .graph file, map.graph keeps it in map.graph.journal.
+//edits are buffered in memory until sync, which appends them and forces them to disk,
+//so a crash loses at most what wasn't synced. save appends them followed by a save record,
+//so saving costs as much as the edits made. compact rewrites the whole map and empties the journal.
+//the saved state of a map is the .graph file plus the edits up to the last save record,
+//GraphLoader.load(Path) replays them. recover also brings back the edits synced after it.
+//the journal header stores the size and modification time of the map it belongs to,
+//a journal left over from before a compaction doesn't match and is not replayed.
+//each record is [int length][payload][int crc32] with payload starting with an op code
+public class GraphJournal<T> {
+
+    private static final int MAGIC = 0x4A525047;
+    private static final int HEADER = 20;
+
+    private static final byte ADD = 1;
+    private static final byte CONNECT = 2;
+    private static final byte DISCONNECT = 3;
+    private static final byte WEIGHT = 4;
+    private static final byte REMOVE = 5;
+    private static final byte SAVE = 6;
+
+    private final Path file;
+    private final NodeFormat<T> format;
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+
+    private int pendingCount;
+    private int syncedCount;
+
+    //records and bytes of the file up to the last save record, -1 until recover, save or compact
+    //have seen the file, before that nothing in it may be cut off
+    private int savedCount;
+    private long savedSize = -1;
+
+    public GraphJournal(Path file, NodeFormat<T> format) {
+        this.file = file;
+        this.format = format;
+    }
+
+    //the journal next to mapFile
+    public static Path fileFor(Path mapFile) {
+        return mapFile.resolveSibling(mapFile.getFileName() + ".journal");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    //records in the journal file plus those waiting for sync
+    public int size() {
+        return syncedCount + pendingCount;
+    }
+
+    public void add(T node) {
+        begin(ADD);
+        try {
+            out.writeUTF(format.getName(node));
+            out.writeDouble(format.getX(node));
+            out.writeDouble(format.getY(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void connect(T node1, T node2, String name, int weight) {
+        begin(CONNECT);
+        try {
+            out.writeUTF(format.getName(node1));
+            out.writeUTF(format.getName(node2));
+            out.writeUTF(name);
+            out.writeInt(weight);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void disconnect(T node1, T node2) {
+        begin(DISCONNECT);
+        try {
+            out.writeUTF(format.getName(node1));
+            out.writeUTF(format.getName(node2));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        begin(WEIGHT);
+        try {
+            out.writeUTF(format.getName(node1));
+            out.writeUTF(format.getName(node2));
+            out.writeInt(weight);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void remove(T node) {
+        begin(REMOVE);
+        try {
+            out.writeUTF(format.getName(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    private void begin(byte op) {
+        record.reset();
+        record.write(op);
+    }
+
+    private void end() {
+        byte[] payload = record.toByteArray();
+        crc.reset();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + 8);
+        frame.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        pending.write(frame.array(), 0, frame.capacity());
+        pendingCount++;
+    }
+
+    public boolean hasPending() {
+        return pendingCount > 0;
+    }
+
+    //throws away every edit since the last save, synced or not
+    public void dropUnsaved() throws IOException {
+        discard();
+        if (savedSize < 0 || !Files.exists(file)) return;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > savedSize) channel.truncate(savedSize);
+        }
+        syncedCount = savedCount;
+    }
+
+    //drops edits that were never synced
+    public void discard() {
+        pending.reset();
+        pendingCount = 0;
+    }
+
+    //appends pending edits and forces them to disk, starting a new journal for mapFile if needed.
+    //they are not saved yet, only recover brings them back
+    public void sync(Path mapFile) throws IOException {
+        append(mapFile);
+    }
+
+    //appends pending edits and a save record, readers of mapFile see the edits from now on
+    public void save(Path mapFile) throws IOException {
+        begin(SAVE);
+        end();
+        savedSize = append(mapFile);
+        savedCount = syncedCount;
+    }
+
+    //returns the size of the journal afterwards
+    private long append(Path mapFile) throws IOException {
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER) {
+                channel.truncate(0);
+                writeHeader(channel, mapFile);
+            }
+            channel.position(channel.size());
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+            size = channel.size();
+        }
+        syncedCount += pendingCount;
+        discard();
+        return size;
+    }
+
+    //writes the whole graph to mapFile through a temporary file and starts an empty journal for it
+    public void compact(String image, Graph<T> graph, Path mapFile) throws IOException {
+        Path temp = mapFile.resolveSibling(mapFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            new GraphWriter<>(format).write(image, graph, writer);
+            writer.flush();
+            channel.force(false);
+        }
+        Files.move(temp, mapFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(channel, mapFile);
+            channel.force(false);
+        }
+        syncedCount = 0;
+        savedCount = 0;
+        savedSize = HEADER;
+        discard();
+    }
+
+    //applies the saved edits to graph loaded from mapFile and returns how many there were.
+    //edits synced after the last save record are left out. only reads the file, so any
+    //program can do this while PathFinder keeps appending
+    public int replay(Path mapFile, Graph<T> graph) throws IOException {
+        if (!Files.exists(file)) return 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, mapFile, graph, false);
+        }
+    }
+
+    //after a crash: applies every synced edit to graph loaded from mapFile, saved or not, and
+    //returns how many were not saved. a torn or corrupt record at the end is cut off, that is
+    //where the last sync stopped, and a journal of another version of the map is emptied
+    public int recover(Path mapFile, Graph<T> graph) throws IOException {
+        discard();
+        syncedCount = 0;
+        savedCount = 0;
+        savedSize = HEADER;
+        if (!Files.exists(file)) return 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return read(channel, mapFile, graph, true);
+        }
+    }
+
+    private int read(FileChannel channel, Path mapFile, Graph<T> graph, boolean recover) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && channel.read(header) >= 0) ;
+        header.flip();
+        if (header.remaining() < HEADER || header.getInt() != MAGIC
+                || header.getLong() != Files.size(mapFile)
+                || header.getLong() != Files.getLastModifiedTime(mapFile).toMillis()) {
+            //belongs to another version of the map, start over
+            if (recover) channel.truncate(0);
+            return 0;
+        }
+        Map<String, T> nodes = new HashMap<>();
+        for (T node : graph.getNodes()) nodes.put(format.getName(node), node);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        //edits since the last save record, applied when the next one comes
+        List<byte[]> unsaved = new ArrayList<>();
+        int applied = 0;
+        int records = 0;
+        long good = HEADER;
+        while (true) {
+            byte[] payload = readRecord(in);
+            if (payload == null) break;
+            records++;
+            good += payload.length + 8;
+            if (payload[0] != SAVE) {
+                unsaved.add(payload);
+                continue;
+            }
+            for (byte[] edit : unsaved) apply(edit, graph, nodes, ++applied);
+            unsaved.clear();
+            if (recover) {
+                savedCount = records;
+                savedSize = good;
+            }
+        }
+        if (!recover) return applied;
+        for (byte[] edit : unsaved) apply(edit, graph, nodes, ++applied);
+        syncedCount = records;
+        if (good < channel.size()) channel.truncate(good);
+        return unsaved.size();
+    }
+
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > 1 << 20) return null;
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            int sum = in.readInt();
+            crc.reset();
+            crc.update(payload);
+            return sum == (int) crc.getValue() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void apply(byte[] payload, Graph<T> graph, Map<String, T> nodes, int number) throws IOException {
+        try {
+            apply(new DataInputStream(new ByteArrayInputStream(payload)), graph, nodes);
+        } catch (RuntimeException e) {
+            throw new IOException("Journal edit " + number + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void apply(DataInputStream in, Graph<T> graph, Map<String, T> nodes) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case ADD: {
+                T node = format.create(in.readUTF(), in.readDouble(), in.readDouble());
+                nodes.put(format.getName(node), node);
+                graph.add(node);
+                break;
+            }
+            case CONNECT:
+                graph.connect(node(nodes, in.readUTF()), node(nodes, in.readUTF()), in.readUTF(), in.readInt());
+                break;
+            case DISCONNECT:
+                graph.disconnect(node(nodes, in.readUTF()), node(nodes, in.readUTF()));
+                break;
+            case WEIGHT:
+                graph.setConnectionWeight(node(nodes, in.readUTF()), node(nodes, in.readUTF()), in.readInt());
+                break;
+            case REMOVE:
+                graph.remove(nodes.remove(in.readUTF()));
+                break;
+            default:
+                throw new IOException("Unknown journal op " + op);
+        }
+    }
+
+    private T node(Map<String, T> nodes, String name) {
+        T node = nodes.get(name);
+        if (node == null) throw new NoSuchElementException("Unknown place " + name);
+        return node;
+    }
+
+    private void writeHeader(FileChannel channel, Path mapFile) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC);
+        header.putLong(Files.exists(mapFile) ? Files.size(mapFile) : -1);
+        header.putLong(Files.exists(mapFile) ? Files.getLastModifiedTime(mapFile).toMillis() : -1);
+        header.flip();
+        channel.position(0);
+        while (header.hasRemaining()) channel.write(header);
+    }
+}
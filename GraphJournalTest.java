@@ -0,0 +1,149 @@
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ Recovers a GraphJournal after a crash. A record torn off halfway or with a bad
+ checksum at the end is where the last sync stopped: recover applies everything
+ before it and cuts the file there, a second recover gives the same graph.
+ A journal left over from another version of the map is not replayed at all.
+ GraphLoader sees the saved edits but not those synced after the last save,
+ and dropping unsaved edits cuts the journal back to the last save.
+ */
+public class GraphJournalTest {
+
+	private static final String IMAGE = "file:europa.gif";
+
+	private Path map;
+	private Path journalFile;
+	//journal size after the first sync, the last record comes after it
+	private long firstSync;
+
+	public static void main(String[] args) throws Exception {
+		var app = new GraphJournalTest();
+		app.test1_torn_tail();
+		app.test2_bad_checksum();
+		app.test3_stale_journal();
+		app.test4_loader_sees_saved_edits();
+		app.test5_drop_unsaved();
+		System.out.printf("%n ==> GraphJournal replays up to the torn tail. <== %n");
+	}
+
+	private void test1_torn_tail() throws Exception {
+		write();
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		check();
+	}
+
+	private void test2_bad_checksum() throws Exception {
+		write();
+		byte[] bytes = Files.readAllBytes(journalFile);
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(journalFile, bytes);
+		check();
+	}
+
+	private void test3_stale_journal() throws Exception {
+		write();
+		Files.writeString(map, Files.readString(map) + "C;A;Road;1\n");
+		Graph<String> graph = new GraphLoader<>(NodeFormat.names()).load(map);
+		if (graph.getNodes().contains("D"))
+			throw new Exception("Error: GraphLoader should not replay a journal of another map version.");
+		graph = load();
+		int applied = new GraphJournal<>(journalFile, NodeFormat.names()).recover(map, graph);
+		if (applied != 0)
+			throw new Exception("Error: a journal of another map version should not be replayed, applied " + applied);
+		if (graph.getNodes().contains("D"))
+			throw new Exception("Error: D comes from the stale journal and should not be added.");
+		if (Files.size(journalFile) != 0)
+			throw new Exception("Error: the stale journal should be emptied, is " + Files.size(journalFile) + " bytes");
+	}
+
+	private void test4_loader_sees_saved_edits() throws Exception {
+		write();
+		long size = Files.size(journalFile);
+		Graph<String> loaded = new ListGraph<>();
+		new GraphLoader<>(NodeFormat.names()).load(map, loaded);
+		savedState(loaded, "GraphLoader.load(Path, Graph)");
+		savedState(new GraphLoader<>(NodeFormat.names()).load(map), "GraphLoader.load(Path)");
+		if (Files.size(journalFile) != size)
+			throw new Exception("Error: loading should only read the journal, it changed from " + size + " to " + Files.size(journalFile) + " bytes");
+		Graph<String> graph = load();
+		int unsaved = new GraphJournal<>(journalFile, NodeFormat.names()).recover(map, graph);
+		if (unsaved != 1 || graph.getEdgeBetween("B", "C") != null)
+			throw new Exception("Error: recover should bring back the unsaved disconnect of B - C, returned " + unsaved);
+	}
+
+	private void test5_drop_unsaved() throws Exception {
+		write();
+		GraphJournal<String> journal = new GraphJournal<>(journalFile, NodeFormat.names());
+		journal.recover(map, load());
+		journal.dropUnsaved();
+		if (Files.size(journalFile) != firstSync)
+			throw new Exception("Error: dropping unsaved edits should cut the journal to " + firstSync + " bytes, is " + Files.size(journalFile));
+		Graph<String> graph = load();
+		int unsaved = new GraphJournal<>(journalFile, NodeFormat.names()).recover(map, graph);
+		if (unsaved != 0)
+			throw new Exception("Error: no unsaved edits should be left, recovered " + unsaved);
+		savedState(graph, "recover after dropping unsaved edits");
+	}
+
+	//a saved map A-B-C and a journal of three saved edits plus a fourth synced but not saved
+	private void write() throws Exception {
+		Path dir = Files.createTempDirectory("journal");
+		map = dir.resolve("map.graph");
+		journalFile = GraphJournal.fileFor(map);
+		Graph<String> graph = new ListGraph<>();
+		graph.add("A");
+		graph.add("B");
+		graph.add("C");
+		graph.connect("A", "B", "Road", 4);
+		graph.connect("B", "C", "Road", 6);
+		GraphJournal<String> journal = new GraphJournal<>(journalFile, NodeFormat.names());
+		journal.compact(IMAGE, graph, map);
+		journal.add("D");
+		journal.connect("C", "D", "Ferry", 5);
+		journal.setConnectionWeight("A", "B", 9);
+		journal.save(map);
+		firstSync = Files.size(journalFile);
+		journal.disconnect("B", "C");
+		journal.sync(map);
+		if (journal.size() != 5)
+			throw new Exception("Error: journal should hold 4 edits and a save, has " + journal.size() + " records");
+	}
+
+	private void savedState(Graph<String> graph, String how) throws Exception {
+		if (!graph.getNodes().contains("D") || graph.getEdgeBetween("C", "D") == null || graph.getEdgeBetween("C", "D").getWeight() != 5)
+			throw new Exception("Error: " + how + " should add D and connect C - D by Ferry 5.");
+		if (graph.getEdgeBetween("A", "B").getWeight() != 9)
+			throw new Exception("Error: " + how + " should set A - B to 9.");
+		if (graph.getEdgeBetween("B", "C") == null)
+			throw new Exception("Error: " + how + " applied the unsaved disconnect of B - C.");
+	}
+
+	private void check() throws Exception {
+		for (int round = 1; round <= 2; round++) {
+			Graph<String> graph = load();
+			GraphJournal<String> journal = new GraphJournal<>(journalFile, NodeFormat.names());
+			int unsaved = journal.recover(map, graph);
+			if (unsaved != 0)
+				throw new Exception("Error: recover " + round + " should find no whole unsaved record, found " + unsaved);
+			savedState(graph, "recover " + round);
+			if (Files.size(journalFile) != firstSync)
+				throw new Exception("Error: the broken tail should be cut off, journal is " + Files.size(journalFile)
+						+ " bytes instead of " + firstSync);
+		}
+	}
+
+	//the map file alone, read through a Reader so the journal is not replayed
+	private Graph<String> load() throws Exception {
+		Graph<String> graph = new ListGraph<>();
+		try (Reader in = Files.newBufferedReader(map, StandardCharsets.UTF_8)) {
+			new GraphLoader<>(NodeFormat.names()).load(in, graph);
+		}
+		return graph;
+	}
+}
@@ -0,0 +1,286 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+//streams a .graph file into any Graph without JavaFX:
+//  line 1: the background image
+//  line 2: name;x;y triples for every node
+//  then one name;name;connection;weight line per edge
+//fields are cut out of a reused char buffer, numbers are parsed from the chars and
+//node and connection names are looked up without creating Strings, so each name
+//is allocated once however many edges mention it. every connection may be listed
+//in both directions, the mirrored line is merged by the GraphBuilder the file is read into.
+//loading a file also replays the saved edits of its GraphJournal, a Reader is taken as it is
+public class GraphLoader<T> {
+
+    private static final int EOF = -1;
+
+    private final NodeFormat<T> format;
+
+    private Reader in;
+    private final char[] buffer = new char[1 << 16];
+    private int pos;
+    private int limit;
+    private int line;
+
+    private char[] field = new char[64];
+    private int length;
+
+    private NameTable<T> nodes;
+    private NameTable<String> connections;
+
+    public GraphLoader(NodeFormat<T> format) {
+        this.format = format;
+    }
+
+    public String load(Path file, Graph<T> graph) throws IOException {
+        String image;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            image = load(reader, graph);
+        }
+        replayJournal(file, graph);
+        return image;
+    }
+
+    //the map in file as a ListGraph sized for it from the start, without the image line
+    public ListGraph<T> load(Path file) throws IOException {
+        GraphBuilder<T> builder = new GraphBuilder<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            load(reader, builder);
+        }
+        ListGraph<T> graph;
+        try {
+            graph = builder.build();
+        } catch (RuntimeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        replayJournal(file, graph);
+        return graph;
+    }
+
+    private void replayJournal(Path file, Graph<T> graph) throws IOException {
+        new GraphJournal<>(GraphJournal.fileFor(file), format).replay(file, graph);
+    }
+
+    //adds every node and connection to graph and returns the image line
+    public String load(Reader reader, Graph<T> graph) throws IOException {
+        GraphBuilder<T> builder = new GraphBuilder<>();
+        String image = load(reader, builder);
+        try {
+            builder.buildInto(graph);
+        } catch (RuntimeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return image;
+    }
+
+    //reads the file into builder, which merges mirrored connections and checks them when
+    //it builds. a ListGraph from builder.build() is sized for the map from the start
+    public String load(Reader reader, GraphBuilder<T> builder) throws IOException {
+        builder.setMergeMirrored(true);
+        in = reader;
+        pos = limit = 0;
+        line = 1;
+        nodes = new NameTable<>();
+        connections = new NameTable<>();
+        try {
+            if (nextField() == EOF && length == 0) throw error("Empty file");
+            String image = new String(field, 0, length);
+            readNodes(builder);
+            readEdges(builder);
+            return image;
+        } finally {
+            in = null;
+            nodes = null;
+            connections = null;
+        }
+    }
+
+    private void readNodes(GraphBuilder<T> builder) throws IOException {
+        line = 2;
+        while (true) {
+            int end = nextField();
+            if (length == 0 && end != ';') return;
+            if (end != ';') throw error("Expected name;x;y");
+            if (nodes.get(field, length) != null) throw error("Duplicate place " + new String(field, 0, length));
+            String name = new String(field, 0, length);
+            if (nextField() != ';') throw error("Expected name;x;y for " + name);
+            double x = parseDouble();
+            end = nextField();
+            double y = parseDouble();
+            T node = format.create(name, x, y);
+            nodes.put(name, node);
+            builder.addNode(node);
+            if (end != ';') return;
+        }
+    }
+
+    private void readEdges(GraphBuilder<T> builder) throws IOException {
+        int end = ';';
+        while (end != EOF) {
+            line++;
+            end = nextField();
+            if (length == 0 && end != ';') continue;
+            T src = node(end);
+            T dest = node(nextField());
+            if (nextField() != ';') throw error("Expected connection;weight");
+            String name = connections.get(field, length);
+            if (name == null) {
+                name = new String(field, 0, length);
+                connections.put(name, name);
+            }
+            end = nextField();
+            if (end == ';') throw error("Too many fields");
+            int weight = parseInt();
+            if (weight < 0) throw error("Negative weight");
+            builder.addEdge(src, dest, name, weight);
+        }
+    }
+
+    private T node(int end) throws IOException {
+        if (end != ';') throw error("Expected place;place;connection;weight");
+        T node = nodes.get(field, length);
+        if (node == null) throw error("Unknown place " + new String(field, 0, length));
+        return node;
+    }
+
+    //reads up to the next ';' or line end into field, returns ';', '\n' or EOF
+    private int nextField() throws IOException {
+        length = 0;
+        while (true) {
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return EOF;
+                }
+            }
+            char c = buffer[pos++];
+            if (c == ';' || c == '\n') return c;
+            if (c == '\r') continue;
+            if (length == field.length) field = Arrays.copyOf(field, length * 2);
+            field[length++] = c;
+        }
+    }
+
+    private int parseInt() throws IOException {
+        if (length == 0) throw error("Missing number");
+        int i = 0;
+        boolean negative = field[0] == '-';
+        if (negative || field[0] == '+') i++;
+        if (i == length) throw error("Bad number");
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = field[i] - '0';
+            if (digit < 0 || digit > 9) throw error("Bad number " + new String(field, 0, length));
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) throw error("Number too large " + new String(field, 0, length));
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw error("Number too large " + new String(field, 0, length));
+        return (int) value;
+    }
+
+    //plain decimals like 470.0 are parsed from the chars, anything else goes through Double.parseDouble
+    private double parseDouble() throws IOException {
+        if (length == 0) throw error("Missing number");
+        int i = 0;
+        boolean negative = field[0] == '-';
+        if (negative || field[0] == '+') i++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = field[i];
+            if (c == '.' && !point) point = true;
+            else if (c >= '0' && c <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (point) scale++;
+            } else {
+                try {
+                    return Double.parseDouble(new String(field, 0, length));
+                } catch (NumberFormatException e) {
+                    throw error("Bad number " + new String(field, 0, length), e);
+                }
+            }
+        }
+        if (digits == 0) throw error("Bad number " + new String(field, 0, length));
+        double value = scale == 0 ? mantissa : mantissa / POWERS[scale];
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS = new double[16];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) POWERS[i] = POWERS[i - 1] * 10;
+    }
+
+    private IOException error(String message) {
+        return error(message, null);
+    }
+
+    private IOException error(String message, Throwable cause) {
+        return new IOException("Line " + line + ": " + message, cause);
+    }
+
+    //open addressing table from names to values, looked up straight from a char buffer
+    private static class NameTable<V> {
+        private String[] keys = new String[64];
+        private Object[] values = new Object[64];
+        private int size;
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        private static int hash(char[] chars, int length) {
+            int h = 0;
+            for (int i = 0; i < length; i++) h = 31 * h + chars[i];
+            return spread(h);
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(char[] chars, int length) {
+            int mask = keys.length - 1;
+            for (int i = hash(chars, length) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (equals(keys[i], chars, length)) return (V) values[i];
+            }
+            return null;
+        }
+
+        //String.hashCode uses the same 31 * h + c sum as hash(chars, length)
+        void put(String key, V value) {
+            if (2 * (size + 1) > keys.length) rehash();
+            int mask = keys.length - 1;
+            int i = spread(key.hashCode()) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        private static boolean equals(String key, char[] chars, int length) {
+            if (key.length() != length) return false;
+            for (int i = 0; i < length; i++) if (key.charAt(i) != chars[i]) return false;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void rehash() {
+            String[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new String[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldKeys[i] != null) put(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+}
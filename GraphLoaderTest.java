@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ Checks the GraphLoader tokenizer on files saved on Windows, with \r\n line ends,
+ and on place and connection names that contain spaces. Bad weights must name
+ their line, conflicting mirrored connections keep GraphBuilder's exception as the cause.
+ */
+public class GraphLoaderTest {
+
+	public static void main(String[] args) throws Exception {
+		var app = new GraphLoaderTest();
+		app.test1_crlf_and_spaces();
+		app.test2_negative_weight_names_line();
+		app.test3_conflict_keeps_cause();
+		System.out.printf("%n ==> GraphLoader reads \\r\\n files and names with spaces. <== %n");
+	}
+
+	private void test1_crlf_and_spaces() throws Exception {
+		String file = "file:europa.gif\r\n"
+				+ "New York;10.5;20.0;Los Angeles;1.0;2.0;Rio de Janeiro;3.0;4.0\r\n"
+				+ "New York;Los Angeles;Night Train;12\r\n"
+				+ "Los Angeles;New York;Night Train;12\r\n"
+				+ "Los Angeles;Rio de Janeiro;Slow Boat;40\r\n";
+		Graph<String> graph = new ListGraph<>();
+		String image = new GraphLoader<>(NodeFormat.names()).load(new StringReader(file), graph);
+		if (!image.equals("file:europa.gif"))
+			throw new Exception("Error: image line should be 'file:europa.gif' without \\r, was '" + image + "'.");
+		if (graph.getNodes().size() != 3 || !graph.getNodes().contains("Rio de Janeiro") || !graph.getNodes().contains("New York"))
+			throw new Exception("Error: expected places New York, Los Angeles and Rio de Janeiro, got " + graph.getNodes());
+		Edge<String> e = graph.getEdgeBetween("New York", "Los Angeles");
+		if (e == null || !e.getName().equals("Night Train") || e.getWeight() != 12)
+			throw new Exception("Error: New York - Los Angeles should be Night Train 12.");
+		e = graph.getEdgeBetween("Rio de Janeiro", "Los Angeles");
+		if (e == null || !e.getName().equals("Slow Boat") || e.getWeight() != 40)
+			throw new Exception("Error: Los Angeles - Rio de Janeiro should be Slow Boat 40, the weight must not keep a \\r.");
+	}
+
+	private void test2_negative_weight_names_line() throws Exception {
+		String file = "file:europa.gif\nA;0;0;B;0;0\nA;B;Road;-3\n";
+		try {
+			new GraphLoader<>(NodeFormat.names()).load(new StringReader(file), new ListGraph<>());
+		} catch (IOException e) {
+			if (!e.getMessage().startsWith("Line 3: "))
+				throw new Exception("Error: message should name line 3, was " + e.getMessage());
+			return;
+		}
+		throw new Exception("Error: loading a negative weight should fail.");
+	}
+
+	private void test3_conflict_keeps_cause() throws Exception {
+		String file = "file:europa.gif\nA;0;0;B;0;0\nA;B;Road;3\nB;A;Road;3\nB;A;Train;3\n";
+		try {
+			new GraphLoader<>(NodeFormat.names()).load(new StringReader(file), new ConcurrentGraph<>());
+		} catch (IOException e) {
+			if (!(e.getCause() instanceof IllegalStateException))
+				throw new Exception("Error: conflict should keep GraphBuilder's exception as cause, was " + e.getCause());
+			if (!e.getMessage().contains("Conflicting connection B;A"))
+				throw new Exception("Error: message should name the conflicting connection, was " + e.getMessage());
+			return;
+		}
+		throw new Exception("Error: B;A by Train conflicts with A;B by Road and should fail.");
+	}
+}
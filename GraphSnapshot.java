@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+//compact binary snapshot of a graph, written from any Graph and opened with MappedGraph.
+//all numbers are little endian. a 96 byte header is followed by these sections:
+//  names    int[n]       string id of each node name
+//  xs, ys   double[n]    node coordinates
+//  offsets  int[n + 1]   CSR offsets, the edges of node i are offsets[i] until offsets[i + 1]
+//  targets  int[m]       destination node of each directed edge
+//  weights  int[m]
+//  labels   int[m]       string id of each connection name
+//  sorted   int[n]       node ids ordered by the UTF-8 bytes of their names, for lookups
+//  pool     int[s + 1]   byte offsets of each string, followed by the UTF-8 bytes
+//every connection is stored in both directions, as in ListGraph
+public class GraphSnapshot {
+
+    static final int MAGIC = 0x48505247;
+    static final int VERSION = 1;
+    static final int HEADER = 96;
+
+    private GraphSnapshot()
+    {}
+
+    public static <T> void write(Graph<T> graph, NodeFormat<T> format, Path file) throws IOException {
+        List<T> nodes = new ArrayList<>(graph.getNodes());
+        int n = nodes.size();
+        Map<T, Integer> ids = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) ids.put(nodes.get(i), i);
+
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] names = new int[n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            names[i] = intern(format.getName(nodes.get(i)), stringIds, strings);
+            offsets[i + 1] = offsets[i] + graph.getEdgesFrom(nodes.get(i)).size();
+        }
+        int m = offsets[n];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int[] labels = new int[m];
+        for (int i = 0; i < n; i++) {
+            int[] k = {offsets[i]};
+            graph.forEachEdge(nodes.get(i), e -> {
+                targets[k[0]] = ids.get(e.getDestination());
+                weights[k[0]] = e.getWeight();
+                labels[k[0]++] = intern(e.getName(), stringIds, strings);
+            });
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(strings.get(names[a]), strings.get(names[b])));
+        int[] poolOffsets = new int[strings.size() + 1];
+        for (int i = 0; i < strings.size(); i++) {
+            long end = (long) poolOffsets[i] + strings.get(i).length;
+            if (end > Integer.MAX_VALUE) throw new IOException("String pool too large");
+            poolOffsets[i + 1] = (int) end;
+        }
+
+        long[] sections = new long[9];
+        sections[0] = HEADER;
+        sections[1] = sections[0] + 4L * n;
+        sections[2] = sections[1] + 8L * n;
+        sections[3] = sections[2] + 8L * n;
+        sections[4] = sections[3] + 4L * (n + 1);
+        sections[5] = sections[4] + 4L * m;
+        sections[6] = sections[5] + 4L * m;
+        sections[7] = sections[6] + 4L * m;
+        sections[8] = sections[7] + 4L * n;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(n);
+            out.putInt(m);
+            out.putInt(strings.size());
+            out.putInt(0);
+            for (long s : sections) out.putLong(s);
+            while (out.position() < HEADER) out.putInt(0);
+            for (int v : names) out.putInt(v);
+            for (T node : nodes) out.putDouble(format.getX(node));
+            for (T node : nodes) out.putDouble(format.getY(node));
+            for (int v : offsets) out.putInt(v);
+            for (int v : targets) out.putInt(v);
+            for (int v : weights) out.putInt(v);
+            for (int v : labels) out.putInt(v);
+            for (Integer v : order) out.putInt(v);
+            for (int v : poolOffsets) out.putInt(v);
+            for (byte[] s : strings) out.put(s);
+            out.flush();
+        }
+    }
+
+    public static MappedGraph open(Path file) throws IOException {
+        return new MappedGraph(file);
+    }
+
+    //true if file starts like a snapshot, so callers can tell it from a text .graph file
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining()) if (channel.read(magic) < 0) return false;
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, List<byte[]> strings) {
+        Integer id = ids.get(s);
+        if (id != null) return id;
+        strings.add(s.getBytes(StandardCharsets.UTF_8));
+        ids.put(s, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    //buffered little endian writer straight to the channel
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return written + buffer.position();
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buffer.putDouble(v);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                if (!buffer.hasRemaining()) flush();
+                int count = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, count);
+                i += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) written += channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+//streams a graph to the .graph text format read by GraphLoader.
+//nodes and edges go straight to the writer, the only extra memory is an id per node,
+//kept unboxed in an open addressing table, and when sorting the edges of one node at a time.
+//each connection is written once unless legacy doubled output is asked for
+public class GraphWriter<T> {
+
+    private final NodeFormat<T> format;
+
+    private boolean legacyDoubled;
+
+    private boolean sorted;
+
+    public GraphWriter(NodeFormat<T> format) {
+        this.format = format;
+    }
+
+    //write every connection in both directions like older versions of PathFinder did
+    public void setLegacyDoubled(boolean legacyDoubled) {
+        this.legacyDoubled = legacyDoubled;
+    }
+
+    //order edges by node id, ids follow the order of getNodes
+    public void setSorted(boolean sorted) {
+        this.sorted = sorted;
+    }
+
+    public void write(String image, Graph<T> graph, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(image, graph, out);
+        }
+    }
+
+    public void write(String image, Graph<T> graph, Writer writer) throws IOException {
+        Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        out.write(image);
+        out.write('\n');
+        NodeIds<T> ids = new NodeIds<>(graph.getNodes().size());
+        for (T node : graph.getNodes()) {
+            ids.add(node);
+            out.write(format.getName(node));
+            out.write(';');
+            out.write(Double.toString(format.getX(node)));
+            out.write(';');
+            out.write(Double.toString(format.getY(node)));
+            out.write(';');
+        }
+        out.write('\n');
+        List<Edge<T>> batch = new ArrayList<>();
+        Comparator<Edge<T>> byDestination = Comparator.comparingInt(e -> ids.get(e.getDestination()));
+        for (T node : graph.getNodes()) {
+            int id = ids.get(node);
+            for (Edge<T> e : graph.getEdgesFrom(node)) {
+                if (!keep(id, ids.get(e.getDestination()))) continue;
+                if (sorted) batch.add(e);
+                else writeEdge(out, e);
+            }
+            if (!sorted) continue;
+            batch.sort(byDestination);
+            for (Edge<T> e : batch) writeEdge(out, e);
+            batch.clear();
+        }
+        out.flush();
+    }
+
+    private boolean keep(int from, int to) {
+        return legacyDoubled || from <= to;
+    }
+
+    //open addressing table from node to the order it was added in, like GraphLoader's NameTable
+    private static class NodeIds<T> {
+        private final Object[] keys;
+        private final int[] values;
+        private int size;
+
+        NodeIds(int nodes) {
+            int length = Integer.highestOneBit(Math.max(2, nodes) * 2 - 1) * 2;
+            keys = new Object[length];
+            values = new int[length];
+        }
+
+        void add(T node) {
+            int mask = keys.length - 1;
+            int i = spread(node.hashCode()) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = node;
+            values[i] = size++;
+        }
+
+        int get(T node) {
+            int mask = keys.length - 1;
+            for (int i = spread(node.hashCode()) & mask; keys[i] != null; i = (i + 1) & mask)
+                if (keys[i].equals(node)) return values[i];
+            throw new NoSuchElementException("Edge to a node outside the graph");
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private void writeEdge(Writer out, Edge<T> e) throws IOException {
+        out.write(format.getName(e.getSrc()));
+        out.write(';');
+        out.write(format.getName(e.getDestination()));
+        out.write(';');
+        out.write(e.getName());
+        out.write(';');
+        out.write(Integer.toString(e.getWeight()));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,13 @@
+//lower bound on the remaining cost from node to target, used by the A* mode of ShortestPath.
+//must never overestimate, and should satisfy estimate(a) <= weight(a, b) + estimate(b)
+//for every edge so that a settled node is final
+@FunctionalInterface
+public interface Heuristic<T> {
+
+    int estimate(T node, T target);
+
+    //turns A* back into plain Dijkstra
+    static <T> Heuristic<T> zero() {
+        return (node, target) -> 0;
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.*;
+
+//two way dictionary between nodes and the int ids used by IntGraph
+public class IdMap<T> {
+
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    private final List<T> nodes = new ArrayList<>();
+
+    public void put(T node, int id) {
+        while (nodes.size() <= id) nodes.add(null);
+        nodes.set(id, node);
+        ids.put(node, id);
+    }
+
+    //-1 if node has no id
+    public int id(T node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    public T node(int id) {
+        return id < nodes.size() ? nodes.get(id) : null;
+    }
+
+    public boolean contains(T node) {
+        return ids.containsKey(node);
+    }
+
+    public int remove(T node) {
+        Integer id = ids.remove(node);
+        if (id == null) return -1;
+        nodes.set(id, null);
+        return id;
+    }
+
+    public Set<T> nodes() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
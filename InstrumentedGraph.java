@@ -0,0 +1,406 @@
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//counts and times every call made through this graph.
+//each operation keeps a call count, a failure count, a latency histogram and, for the path
+//searches, the nodes visited and edges relaxed as reported in PathResult.
+//recording is lock free (LongAdders and an AtomicLongArray) so it can stay on in the app and
+//under ConcurrentGraph. the histogram buckets are within 12.5% so p50 and p99 are approximate,
+//max is exact. forEachEdge is timed including the action.
+//wrap the cache rather than being wrapped by it to time what callers see, a cached result
+//reports the work of the search that produced it again.
+//close stops the periodic dumps started with dumpEvery
+public class InstrumentedGraph<T> extends ForwardingGraph<T> implements AutoCloseable {
+
+    public enum Operation {
+        ADD("add"),
+        CONNECT("connect"),
+        SET_CONNECTION_WEIGHT("setConnectionWeight"),
+        SET_CONNECTION_WEIGHTS("setConnectionWeights"),
+        GET_NODES("getNodes"),
+        GET_EDGES_FROM("getEdgesFrom"),
+        FOR_EACH_EDGE("forEachEdge"),
+        GET_EDGE_BETWEEN("getEdgeBetween"),
+        DISCONNECT("disconnect"),
+        REMOVE("remove"),
+        REMOVE_ALL("removeAll"),
+        PATH_EXISTS("pathExists"),
+        GET_PATH("getPath"),
+        GET_SHORTEST_PATH("getShortestPath"),
+        FIND_PATH("findPath"),
+        FIND_SHORTEST_PATH("findShortestPath"),
+        FIND_SHORTEST_PATH_HEURISTIC("findShortestPath(heuristic)");
+
+        private final String method;
+
+        Operation(String method) {
+            this.method = method;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    public enum Format { TEXT, JSON }
+
+    //started by the first dumpEvery, daemon so it never keeps the app alive
+    private ScheduledExecutorService dumper;
+
+    private final Recorder[] recorders = new Recorder[Operation.values().length];
+
+    public InstrumentedGraph(Graph<T> graph) {
+        super(graph);
+        for (int i = 0; i < recorders.length; i++) recorders[i] = new Recorder();
+    }
+
+    @Override
+    public void add(T node) {
+        timed(Operation.ADD, () -> graph.add(node));
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        timed(Operation.CONNECT, () -> graph.connect(node1, node2, name, weight));
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        timed(Operation.SET_CONNECTION_WEIGHT, () -> graph.setConnectionWeight(node1, node2, weight));
+    }
+
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        timed(Operation.SET_CONNECTION_WEIGHTS, () -> graph.setConnectionWeights(updates));
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return timed(Operation.GET_NODES, () -> graph.getNodes());
+    }
+
+    @Override
+    public Collection<Edge<T>> getEdgesFrom(T node) {
+        return timed(Operation.GET_EDGES_FROM, () -> graph.getEdgesFrom(node));
+    }
+
+    @Override
+    public void forEachEdge(T node, Consumer<Edge<T>> action) {
+        timed(Operation.FOR_EACH_EDGE, () -> graph.forEachEdge(node, action));
+    }
+
+    @Override
+    public Edge<T> getEdgeBetween(T node1, T node2) {
+        return timed(Operation.GET_EDGE_BETWEEN, () -> graph.getEdgeBetween(node1, node2));
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        timed(Operation.DISCONNECT, () -> graph.disconnect(node1, node2));
+    }
+
+    @Override
+    public void remove(T node) {
+        timed(Operation.REMOVE, () -> graph.remove(node));
+    }
+
+    @Override
+    public void removeAll(Collection<T> nodes) {
+        timed(Operation.REMOVE_ALL, () -> graph.removeAll(nodes));
+    }
+
+    //the boolean and list forms go through the find methods of the wrapped graph so their work is counted too
+    @Override
+    public boolean pathExists(T from, T to) {
+        return search(Operation.PATH_EXISTS, () -> graph.findPath(from, to)).exists();
+    }
+
+    @Override
+    public List<Edge<T>> getPath(T from, T to) {
+        return search(Operation.GET_PATH, () -> graph.findPath(from, to)).getPath();
+    }
+
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return search(Operation.GET_SHORTEST_PATH, () -> graph.findShortestPath(from, to)).getPath();
+    }
+
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        return search(Operation.FIND_PATH, () -> graph.findPath(from, to));
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        return search(Operation.FIND_SHORTEST_PATH, () -> graph.findShortestPath(from, to));
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        return search(Operation.FIND_SHORTEST_PATH_HEURISTIC, () -> graph.findShortestPath(from, to, heuristic));
+    }
+
+    //counted with the plain heuristic search, a cancelled one still records the time it took
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        return search(Operation.FIND_SHORTEST_PATH_HEURISTIC,
+                () -> graph.findShortestPath(from, to, heuristic, listener, isCancelled));
+    }
+
+    private PathResult<T> search(Operation op, Supplier<PathResult<T>> call) {
+        PathResult<T> result = timed(op, call);
+        Recorder r = recorders[op.ordinal()];
+        r.visited.add(result.getNodesVisited());
+        r.relaxed.add(result.getEdgesRelaxed());
+        return result;
+    }
+
+    //runs call and records how long it took under op, a call that throws counts as failed
+    private <R> R timed(Operation op, Supplier<R> call) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            R result = call.get();
+            ok = true;
+            return result;
+        } finally {
+            recorders[op.ordinal()].record(System.nanoTime() - start, ok);
+        }
+    }
+
+    private void timed(Operation op, Runnable call) {
+        timed(op, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    //statistics of one operation, operations that were never called are left out
+    public Map<Operation, Stats> getSnapshot() {
+        Map<Operation, Stats> snapshot = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            Stats stats = recorders[op.ordinal()].snapshot(op);
+            if (stats.getCount() > 0) snapshot.put(op, stats);
+        }
+        return snapshot;
+    }
+
+    public Stats getStats(Operation op) {
+        return recorders[op.ordinal()].snapshot(op);
+    }
+
+    //calls made while resetting may be counted in either period
+    public void reset() {
+        for (Recorder r : recorders) r.reset();
+    }
+
+    //one line per operation, e.g.
+    //"findShortestPath count 120 failed 0 p50 35.2us p99 1.20ms max 3.41ms visited 12000 relaxed 48000"
+    public String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (Stats stats : getSnapshot().values()) sb.append(stats).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    //{"add":{"count":3,"failed":0,"p50Nanos":800,...},...}
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Stats stats : getSnapshot().values()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(stats.getOperation().getMethod()).append("\":").append(stats.toJson());
+        }
+        return sb.append('}').toString();
+    }
+
+    //writes the statistics to out every period until the returned future is cancelled or the graph closed
+    public synchronized ScheduledFuture<?> dumpEvery(long period, TimeUnit unit, Format format, Consumer<String> out) {
+        if (period <= 0) throw new IllegalArgumentException("Period must be positive");
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "graph-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return dumper.scheduleAtFixedRate(
+                () -> out.accept(format == Format.JSON ? toJson() : getStatistics()), period, period, unit);
+    }
+
+    //stops every dump and its thread, the graph itself stays usable
+    @Override
+    public synchronized void close() {
+        if (dumper == null) return;
+        dumper.shutdownNow();
+        dumper = null;
+    }
+
+    public static class Stats {
+        private final Operation operation;
+        private final long count;
+        private final long failed;
+        private final long totalNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long nodesVisited;
+        private final long edgesRelaxed;
+
+        Stats(Operation operation, long count, long failed, long totalNanos, long p50Nanos, long p99Nanos,
+              long maxNanos, long nodesVisited, long edgesRelaxed) {
+            this.operation = operation;
+            this.count = count;
+            this.failed = failed;
+            this.totalNanos = totalNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.nodesVisited = nodesVisited;
+            this.edgesRelaxed = edgesRelaxed;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        //calls that threw, they are timed like the others
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getNodesVisited() {
+            return nodesVisited;
+        }
+
+        public long getEdgesRelaxed() {
+            return edgesRelaxed;
+        }
+
+        @Override
+        public String toString() {
+            String s = operation.getMethod() + " count " + count + " failed " + failed + " p50 " + time(p50Nanos)
+                    + " p99 " + time(p99Nanos) + " max " + time(maxNanos);
+            if (nodesVisited > 0 || edgesRelaxed > 0) s += " visited " + nodesVisited + " relaxed " + edgesRelaxed;
+            return s;
+        }
+
+        public String toJson() {
+            return "{\"count\":" + count + ",\"failed\":" + failed + ",\"meanNanos\":" + getMeanNanos()
+                    + ",\"p50Nanos\":" + p50Nanos + ",\"p99Nanos\":" + p99Nanos + ",\"maxNanos\":" + maxNanos
+                    + ",\"nodesVisited\":" + nodesVisited + ",\"edgesRelaxed\":" + edgesRelaxed + "}";
+        }
+
+        private static String time(long nanos) {
+            if (nanos < 1_000) return nanos + "ns";
+            if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+            if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        }
+    }
+
+    //log-linear histogram: exact below 16ns, above that 8 buckets per power of two
+    private static class Recorder {
+        private static final int SUB_BITS = 3;
+        private static final int EXACT = 16;
+        private static final int BUCKETS = EXACT + (63 - 4) * (1 << SUB_BITS);
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder visited = new LongAdder();
+        private final LongAdder relaxed = new LongAdder();
+
+        void record(long nanos, boolean ok) {
+            if (nanos < 0) nanos = 0;
+            count.increment();
+            if (!ok) failed.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+            buckets.incrementAndGet(bucket(nanos));
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < EXACT) return (int) nanos;
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return EXACT + (exponent - 4) * (1 << SUB_BITS) + sub;
+        }
+
+        //largest value that falls in bucket
+        private static long upperBound(int bucket) {
+            if (bucket < EXACT) return bucket;
+            int exponent = (bucket - EXACT) / (1 << SUB_BITS) + 4;
+            long sub = (bucket - EXACT) % (1 << SUB_BITS);
+            return (((1L << SUB_BITS) + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+
+        Stats snapshot(Operation op) {
+            long[] counts = new long[BUCKETS];
+            long inHistogram = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                inHistogram += counts[i];
+            }
+            long highest = max.get();
+            return new Stats(op, count.sum(), failed.sum(), total.sum(),
+                    Math.min(percentile(counts, inHistogram, 0.50), highest),
+                    Math.min(percentile(counts, inHistogram, 0.99), highest),
+                    highest, visited.sum(), relaxed.sum());
+        }
+
+        private static long percentile(long[] counts, long total, double p) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBound(i);
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        void reset() {
+            count.reset();
+            failed.reset();
+            total.reset();
+            max.reset();
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            visited.reset();
+            relaxed.reset();
+        }
+    }
+}
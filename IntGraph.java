@@ -0,0 +1,381 @@
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+//undirected graph over int ids, kept entirely in primitive arrays.
+//every node has parallel target/weight/name arrays, edge names are interned in a
+//string pool, and one open addressing long -> int map finds the slot of (from, to)
+//in O(1). searches reuse their scratch arrays, so a query allocates only its result.
+//not thread safe, not even when only searching: every search writes the same scratch
+//arrays, so two threads must never use one IntGraph at the same time
+public class IntGraph {
+
+    private static final int[] NONE = new int[0];
+
+    private int[][] targets = new int[16][];
+    private int[][] weights = new int[16][];
+    private int[][] names = new int[16][];
+    private int[] degree = new int[16];
+    private boolean[] live = new boolean[16];
+    private int capacity;
+    private int nodeCount;
+    private long edgeCount;
+
+    //ids of removed nodes, handed out again by addNode
+    private int[] free = new int[16];
+    private int freeCount;
+
+    private final List<String> namePool = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    private final SlotMap slots = new SlotMap();
+
+    //scratch for searches, a node is visited in the current search when stamp[node] == search
+    private int[] stamp = NONE;
+    private int[] dist = NONE;
+    private int[] parent = NONE;
+    private int search;
+    private final IntHeap heap = new IntHeap();
+
+    //work done by the last search, nodes visited and edges relaxed
+    private int visited;
+    private int relaxed;
+
+    public int addNode() {
+        int id;
+        if (freeCount > 0) id = free[--freeCount];
+        else {
+            if (capacity == live.length) grow(capacity * 2);
+            id = capacity++;
+        }
+        targets[id] = NONE;
+        weights[id] = NONE;
+        names[id] = NONE;
+        degree[id] = 0;
+        live[id] = true;
+        nodeCount++;
+        return id;
+    }
+
+    //O(degree), drops the reverse edge at every neighbour
+    public void removeNode(int node) {
+        check(node);
+        for (int k = degree[node] - 1; k >= 0; k--) {
+            int to = targets[node][k];
+            slots.remove(key(node, to));
+            removeSlot(to, slots.remove(key(to, node)));
+        }
+        edgeCount -= degree[node];
+        targets[node] = weights[node] = names[node] = null;
+        degree[node] = 0;
+        live[node] = false;
+        nodeCount--;
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = node;
+    }
+
+    public boolean contains(int node) {
+        return node >= 0 && node < capacity && live[node];
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    //number of undirected connections
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    //ids are below capacity, useful for sizing per node arrays
+    public int capacity() {
+        return capacity;
+    }
+
+    public void connect(int node1, int node2, String name, int weight) {
+        check(node1);
+        check(node2);
+        if (weight < 0) throw new IllegalArgumentException("Negative weight");
+        if (slots.get(key(node1, node2)) >= 0 || slots.get(key(node2, node1)) >= 0)
+            throw new IllegalStateException("Edge already exists");
+        int nameId = intern(name);
+        append(node1, node2, weight, nameId);
+        if (node1 != node2) append(node2, node1, weight, nameId);
+        edgeCount++;
+    }
+
+    public void disconnect(int node1, int node2) {
+        check(node1);
+        check(node2);
+        int slot1 = slots.remove(key(node1, node2));
+        int slot2 = slots.remove(key(node2, node1));
+        if (slot1 < 0 && slot2 < 0) throw new IllegalStateException("Edge does not exist");
+        removeSlot(node1, slot1);
+        removeSlot(node2, slot2);
+        edgeCount--;
+    }
+
+    public void setWeight(int node1, int node2, int weight) {
+        check(node1);
+        check(node2);
+        if (weight < 0) throw new IllegalArgumentException("Weight must be a positive integer.");
+        int slot1 = slots.get(key(node1, node2));
+        int slot2 = slots.get(key(node2, node1));
+        if (slot1 < 0 || slot2 < 0) throw new NoSuchElementException("Edge does not exist");
+        weights[node1][slot1] = weight;
+        weights[node2][slot2] = weight;
+    }
+
+    public boolean hasEdge(int node1, int node2) {
+        return slots.get(key(node1, node2)) >= 0;
+    }
+
+    //weight of the edge node1 -> node2, -1 if they are not connected
+    public int weight(int node1, int node2) {
+        int slot = slots.get(key(node1, node2));
+        return slot < 0 ? -1 : weights[node1][slot];
+    }
+
+    public String edgeName(int node1, int node2) {
+        int slot = slots.get(key(node1, node2));
+        return slot < 0 ? null : namePool.get(names[node1][slot]);
+    }
+
+    //cursor over the neighbours of node: for k in 0 until degree(node) read targetAt/weightAt/nameAt
+    public int degree(int node) {
+        check(node);
+        return degree[node];
+    }
+
+    public int targetAt(int node, int k) {
+        return targets[node][k];
+    }
+
+    public int weightAt(int node, int k) {
+        return weights[node][k];
+    }
+
+    public String nameAt(int node, int k) {
+        return namePool.get(names[node][k]);
+    }
+
+    //fewest edges from -> to as node ids including both ends, null if no path exists
+    public int[] path(int from, int to) {
+        check(from);
+        check(to);
+        int visit = startSearch();
+        int[] queue = dist;
+        int head = 0;
+        int tail = 0;
+        stamp[from] = visit;
+        parent[from] = -1;
+        queue[tail++] = from;
+        while (head < tail) {
+            int where = queue[head++];
+            visited++;
+            if (where == to) return gather(to);
+            relaxed += degree[where];
+            for (int k = 0; k < degree[where]; k++) {
+                int next = targets[where][k];
+                if (stamp[next] != visit) {
+                    stamp[next] = visit;
+                    parent[next] = where;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return null;
+    }
+
+    public int[] shortestPath(int from, int to) {
+        return shortestPath(from, to, node -> 0);
+    }
+
+    //Dijkstra, or A* when estimate gives a lower bound of the cost from a node to the target
+    public int[] shortestPath(int from, int to, IntUnaryOperator estimate) {
+        check(from);
+        check(to);
+        int visit = startSearch();
+        //stamp == visit means reached, stamp == -visit means settled
+        heap.clear();
+        stamp[from] = visit;
+        dist[from] = 0;
+        parent[from] = -1;
+        heap.push(estimate.applyAsInt(from), from);
+        while (!heap.isEmpty()) {
+            int where = heap.peekNode();
+            heap.pop();
+            if (stamp[where] == -visit) continue;
+            stamp[where] = -visit;
+            visited++;
+            if (where == to) return gather(to);
+            relaxed += degree[where];
+            int cost = dist[where];
+            for (int k = 0; k < degree[where]; k++) {
+                int next = targets[where][k];
+                if (stamp[next] == -visit) continue;
+                int c = IntHeap.add(cost, weights[where][k]);
+                if (stamp[next] != visit || c < dist[next]) {
+                    stamp[next] = visit;
+                    dist[next] = c;
+                    parent[next] = where;
+                    heap.push(IntHeap.add(c, estimate.applyAsInt(next)), next);
+                }
+            }
+        }
+        return null;
+    }
+
+    //nodes taken off the queue by the last path or shortestPath
+    public int lastNodesVisited() {
+        return visited;
+    }
+
+    //edges looked at from those nodes
+    public int lastEdgesRelaxed() {
+        return relaxed;
+    }
+
+    private int[] gather(int to) {
+        int length = 0;
+        for (int where = to; where != -1; where = parent[where]) length++;
+        int[] path = new int[length];
+        for (int where = to; where != -1; where = parent[where]) path[--length] = where;
+        return path;
+    }
+
+    private int startSearch() {
+        if (stamp.length < capacity) {
+            stamp = new int[capacity];
+            dist = new int[capacity];
+            parent = new int[capacity];
+            search = 0;
+        }
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        visited = 0;
+        relaxed = 0;
+        return search;
+    }
+
+    private void append(int node, int to, int weight, int nameId) {
+        int d = degree[node];
+        if (d == targets[node].length) {
+            int size = Math.max(4, d * 2);
+            targets[node] = Arrays.copyOf(targets[node], size);
+            weights[node] = Arrays.copyOf(weights[node], size);
+            names[node] = Arrays.copyOf(names[node], size);
+        }
+        targets[node][d] = to;
+        weights[node][d] = weight;
+        names[node][d] = nameId;
+        slots.put(key(node, to), d);
+        degree[node] = d + 1;
+    }
+
+    //moves the last neighbour into the freed slot so the arrays stay dense
+    private void removeSlot(int node, int slot) {
+        if (slot < 0) return;
+        int last = --degree[node];
+        if (slot != last) {
+            targets[node][slot] = targets[node][last];
+            weights[node][slot] = weights[node][last];
+            names[node][slot] = names[node][last];
+            slots.put(key(node, targets[node][slot]), slot);
+        }
+    }
+
+    private int intern(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+        namePool.add(name);
+        nameIds.put(name, namePool.size() - 1);
+        return namePool.size() - 1;
+    }
+
+    private void grow(int size) {
+        targets = Arrays.copyOf(targets, size);
+        weights = Arrays.copyOf(weights, size);
+        names = Arrays.copyOf(names, size);
+        degree = Arrays.copyOf(degree, size);
+        live = Arrays.copyOf(live, size);
+    }
+
+    private void check(int node) {
+        if (!contains(node)) throw new NoSuchElementException("Nodes does not exist");
+    }
+
+    private static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    //open addressing map from (from, to) to the slot of that edge in from's arrays,
+    //linear probing with backward shift deletion so there are no tombstones
+    private static class SlotMap {
+        private static final long EMPTY = -1L;
+
+        private long[] keys = newKeys(64);
+        private int[] values = new int[64];
+        private int size;
+
+        private static long[] newKeys(int size) {
+            long[] keys = new long[size];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private int index(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+        }
+
+        int get(long key) {
+            for (int i = index(key); keys[i] != EMPTY; i = (i + 1) & (keys.length - 1))
+                if (keys[i] == key) return values[i];
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) rehash(keys.length * 2);
+            int i = index(key);
+            while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & (keys.length - 1);
+            if (keys[i] == EMPTY) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        //returns the removed value, -1 if key was absent
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = index(key);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return -1;
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = index(keys[j]);
+                //entry j may move into the hole if its home is not cyclically between hole and j
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            size--;
+            return value;
+        }
+
+        private void rehash(int length) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(length);
+            values = new int[length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
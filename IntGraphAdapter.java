@@ -0,0 +1,167 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+//Graph<T> on top of an IntGraph, nodes are translated to ids through an IdMap.
+//Edge objects are created on demand when asked for and are not stored, so changing
+//the weight of a returned Edge does not change the graph, use setConnectionWeight.
+//a standalone engine for single threaded callers, the app keeps using ConcurrentGraph.
+//it inherits IntGraph's shared search scratch, so even concurrent path queries are unsafe
+public class IntGraphAdapter<T> implements Graph<T> {
+
+    private final IntGraph core = new IntGraph();
+
+    private final IdMap<T> ids = new IdMap<>();
+
+    public IntGraph getCore() {
+        return core;
+    }
+
+    public IdMap<T> getIds() {
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        List<String> finalList = new ArrayList<>();
+        for (T node : ids.nodes()) finalList.add("Name: " + node + " Edges: " + getEdgesFrom(node));
+        return finalList.toString();
+    }
+
+    @Override
+    public void add(T node) {
+        if (!ids.contains(node)) ids.put(node, core.addNode());
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Negative weight");
+        core.connect(id(node1), id(node2), name, weight);
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        core.setWeight(id(node1), id(node2), weight);
+    }
+
+    //all updates are checked before any weight changes
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        int[] pairs = new int[updates.size() * 2];
+        int i = 0;
+        for (WeightUpdate<T> u : updates) {
+            if (u.getWeight() < 0) throw new IllegalArgumentException("Weight must be a positive integer.");
+            int from = id(u.getFrom());
+            int to = id(u.getTo());
+            if (!core.hasEdge(from, to)) throw new NoSuchElementException("Edge does not exist");
+            pairs[i++] = from;
+            pairs[i++] = to;
+        }
+        i = 0;
+        for (WeightUpdate<T> u : updates) {
+            core.setWeight(pairs[i], pairs[i + 1], u.getWeight());
+            i += 2;
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return ids.nodes();
+    }
+
+    @Override
+    public Collection<Edge<T>> getEdgesFrom(T node) {
+        List<Edge<T>> edges = new ArrayList<>();
+        forEachEdge(node, edges::add);
+        return Collections.unmodifiableCollection(edges);
+    }
+
+    @Override
+    public void forEachEdge(T node, Consumer<Edge<T>> action) {
+        int id = id(node);
+        for (int k = 0; k < core.degree(id); k++)
+            action.accept(new Edge<>(core.nameAt(id, k), node, ids.node(core.targetAt(id, k)), core.weightAt(id, k)));
+    }
+
+    @Override
+    public Edge<T> getEdgeBetween(T node1, T node2) {
+        int id1 = id(node1);
+        int id2 = id(node2);
+        int weight = core.weight(id1, id2);
+        return weight < 0 ? null : new Edge<>(core.edgeName(id1, id2), node1, node2, weight);
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        core.disconnect(id(node1), id(node2));
+    }
+
+    @Override
+    public void remove(T node) {
+        core.removeNode(id(node));
+        ids.remove(node);
+    }
+
+    @Override
+    public void removeAll(Collection<T> nodes) {
+        for (T node : nodes) id(node);
+        for (T node : new HashSet<>(nodes)) remove(node);
+    }
+
+    @Override
+    public boolean pathExists(T from, T to) {
+        return ids.contains(from) && ids.contains(to) && core.path(ids.id(from), ids.id(to)) != null;
+    }
+
+    @Override
+    public List<Edge<T>> getPath(T from, T to) {
+        return findPath(from, to).getPath();
+    }
+
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return findShortestPath(from, to).getPath();
+    }
+
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        if (!ids.contains(from) || !ids.contains(to)) return PathResult.none();
+        return toResult(core.path(ids.id(from), ids.id(to)));
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        if (!ids.contains(from) || !ids.contains(to)) return PathResult.none();
+        return toResult(core.shortestPath(ids.id(from), ids.id(to)));
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        if (!ids.contains(from) || !ids.contains(to)) return PathResult.none();
+        return toResult(core.shortestPath(ids.id(from), ids.id(to), n -> heuristic.estimate(ids.node(n), to)));
+    }
+
+    //the int core has no hooks, a watched search runs the generic ShortestPath over forEachEdge instead
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        return ShortestPath.find(this, from, to, heuristic, listener, isCancelled);
+    }
+
+    //edges are only created for the nodes on the path
+    private PathResult<T> toResult(int[] path) {
+        if (path == null) return PathResult.none(core.lastNodesVisited(), core.lastEdgesRelaxed());
+        List<Edge<T>> edges = new ArrayList<>(path.length);
+        for (int i = 1; i < path.length; i++) {
+            int a = path[i - 1];
+            int b = path[i];
+            edges.add(new Edge<>(core.edgeName(a, b), ids.node(a), ids.node(b), core.weight(a, b)));
+        }
+        return PathResult.of(edges, core.lastNodesVisited(), core.lastEdgesRelaxed());
+    }
+
+    private int id(T node) {
+        int id = ids.id(node);
+        if (id < 0) throw new NoSuchElementException("Nodes does not exist");
+        return id;
+    }
+}
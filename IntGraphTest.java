@@ -0,0 +1,111 @@
+import java.util.*;
+
+/**
+ Checks IntGraph's edge index against a HashMap model. Random connects and
+ disconnects on a dense id range make the open addressing SlotMap fill, grow and
+ backward shift its entries on delete; every edge must still be found afterwards
+ and no removed edge may come back.
+ Also checks reused node ids and the work counters IntGraphAdapter reports.
+ */
+public class IntGraphTest {
+
+	private static final int NODES = 200;
+	private static final int OPERATIONS = 40_000;
+
+	public static void main(String[] args) throws Exception {
+		var app = new IntGraphTest();
+		app.test1_random_connect_disconnect();
+		app.test2_remove_node_reuses_id();
+		app.test3_adapter_reports_work();
+		System.out.printf("%n ==> IntGraph edge index agrees with the model. <== %n");
+	}
+
+	private void test1_random_connect_disconnect() throws Exception {
+		IntGraph graph = new IntGraph();
+		for (int i = 0; i < NODES; i++) graph.addNode();
+		Map<Long, Integer> model = new HashMap<>();
+		Random random = new Random(1);
+		for (int op = 0; op < OPERATIONS; op++) {
+			int a = random.nextInt(NODES);
+			int b = random.nextInt(NODES);
+			if (a == b) continue;
+			long key = key(Math.min(a, b), Math.max(a, b));
+			if (model.containsKey(key)) {
+				graph.disconnect(a, b);
+				model.remove(key);
+			} else {
+				int weight = random.nextInt(100);
+				graph.connect(a, b, "road" + weight % 3, weight);
+				model.put(key, weight);
+			}
+			if (op % 4000 == 0) checkAgainst(graph, model);
+		}
+		checkAgainst(graph, model);
+		//empty it again, every delete shifts entries back
+		for (long key : new ArrayList<>(model.keySet())) {
+			graph.disconnect((int) (key >>> 32), (int) key);
+			model.remove(key);
+		}
+		checkAgainst(graph, model);
+	}
+
+	private void test2_remove_node_reuses_id() throws Exception {
+		IntGraph graph = new IntGraph();
+		int a = graph.addNode();
+		int b = graph.addNode();
+		int c = graph.addNode();
+		graph.connect(a, b, "ab", 1);
+		graph.connect(b, c, "bc", 2);
+		graph.removeNode(b);
+		int d = graph.addNode();
+		if (d != b)
+			throw new Exception("Error: addNode should reuse the id of a removed node.");
+		if (graph.hasEdge(a, d) || graph.hasEdge(d, c) || graph.degree(a) != 0 || graph.degree(c) != 0)
+			throw new Exception("Error: edges of a removed node are still there.");
+		graph.connect(a, d, "ad", 3);
+		if (graph.weight(d, a) != 3 || !"ad".equals(graph.edgeName(a, d)))
+			throw new Exception("Error: reused id does not get its new edge.");
+	}
+
+	private void test3_adapter_reports_work() throws Exception {
+		IntGraphAdapter<String> graph = new IntGraphAdapter<>();
+		for (String node : List.of("A", "B", "C", "D")) graph.add(node);
+		graph.connect("A", "B", "ab", 1);
+		graph.connect("B", "C", "bc", 1);
+		graph.connect("A", "C", "ac", 5);
+		PathResult<String> found = graph.findShortestPath("A", "C");
+		if (found.getTotalWeight() != 2 || found.getNodesVisited() == 0 || found.getEdgesRelaxed() == 0)
+			throw new Exception("Error: shortest path A -> C should weigh 2 and report its work, was " + found
+					+ " visited " + found.getNodesVisited() + " relaxed " + found.getEdgesRelaxed());
+		PathResult<String> none = graph.findPath("A", "D");
+		if (none.exists() || none.getNodesVisited() != 3)
+			throw new Exception("Error: failed search A -> D should report 3 visited nodes, was " + none.getNodesVisited());
+	}
+
+	private static void checkAgainst(IntGraph graph, Map<Long, Integer> model) throws Exception {
+		long edges = 0;
+		for (int a = 0; a < NODES; a++) {
+			int degree = 0;
+			for (int b = 0; b < NODES; b++) {
+				Integer weight = a == b ? null : model.get(key(Math.min(a, b), Math.max(a, b)));
+				if (weight == null) {
+					if (graph.hasEdge(a, b))
+						throw new Exception("Error: removed edge " + a + " - " + b + " is still found.");
+					continue;
+				}
+				degree++;
+				if (graph.weight(a, b) != weight || !("road" + weight % 3).equals(graph.edgeName(a, b)))
+					throw new Exception("Error: edge " + a + " - " + b + " should weigh " + weight + " but was " + graph.weight(a, b));
+			}
+			if (graph.degree(a) != degree)
+				throw new Exception("Error: node " + a + " has degree " + graph.degree(a) + ", expected " + degree);
+			edges += degree;
+		}
+		if (graph.edgeCount() * 2 != edges)
+			throw new Exception("Error: edgeCount " + graph.edgeCount() + " does not match the model.");
+	}
+
+	private static long key(int a, int b) {
+		return (long) a << 32 | b;
+	}
+}
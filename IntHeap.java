@@ -0,0 +1,52 @@
+import java.util.Arrays;
+
+//binary min heap of (cost, node) packed into longs, stale entries are skipped by the caller
+class IntHeap {
+    private long[] heap = new long[16];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    //sum of two non-negative costs, stuck at Integer.MAX_VALUE instead of wrapping to negative.
+    //the int engines keep costs in int arrays, paths that heavy all compare as equally expensive
+    static int add(int cost, int weight) {
+        return (int) Math.min((long) cost + weight, Integer.MAX_VALUE);
+    }
+
+    void push(int cost, int node) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        long item = ((long) cost << 32) | (node & 0xffffffffL);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= item) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    int peekNode() {
+        return (int) heap[0];
+    }
+
+    void pop() {
+        long item = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= item) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+}
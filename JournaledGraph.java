@@ -0,0 +1,60 @@
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+//records every successful edit in a GraphJournal
+public class JournaledGraph<T> extends ForwardingGraph<T> {
+
+    private final GraphJournal<T> journal;
+
+    public JournaledGraph(Graph<T> graph, GraphJournal<T> journal) {
+        super(graph);
+        this.journal = journal;
+    }
+
+    public GraphJournal<T> getJournal() {
+        return journal;
+    }
+
+    @Override
+    public void add(T node) {
+        if (graph.getNodes().contains(node)) return;
+        graph.add(node);
+        journal.add(node);
+    }
+
+    @Override
+    public void connect(T node1, T node2, String name, int weight) {
+        graph.connect(node1, node2, name, weight);
+        journal.connect(node1, node2, name, weight);
+    }
+
+    @Override
+    public void setConnectionWeight(T node1, T node2, int weight) {
+        graph.setConnectionWeight(node1, node2, weight);
+        journal.setConnectionWeight(node1, node2, weight);
+    }
+
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        graph.setConnectionWeights(updates);
+        for (WeightUpdate<T> u : updates) journal.setConnectionWeight(u.getFrom(), u.getTo(), u.getWeight());
+    }
+
+    @Override
+    public void disconnect(T node1, T node2) {
+        graph.disconnect(node1, node2);
+        journal.disconnect(node1, node2);
+    }
+
+    @Override
+    public void remove(T node) {
+        graph.remove(node);
+        journal.remove(node);
+    }
+
+    @Override
+    public void removeAll(Collection<T> nodes) {
+        graph.removeAll(nodes);
+        for (T node : new LinkedHashSet<>(nodes)) journal.remove(node);
+    }
+}
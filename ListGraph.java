@@ -6,16 +6,27 @@
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 
 public class ListGraph<T> implements Graph<T>, Serializable {
 
-    private final Map<T, Set<Edge<T>>> nodes = new HashMap<>();
+    //adjacency keyed by destination, so edge lookups don't scan the neighbours
+    private final Map<T, Map<T, Edge<T>>> nodes;
 
-    private final List<Edge<T>> edges = new ArrayList<>();
+    public ListGraph() {
+        nodes = new HashMap<>();
+    }
 
-    public ListGraph()
-    {}
+    //pre-sized for GraphBuilder so loading doesn't rehash as it grows
+    ListGraph(int expectedNodes) {
+        nodes = new HashMap<>(capacity(expectedNodes));
+    }
+
+    private static int capacity(int expected) {
+        return (int) Math.min(1 << 30, expected / 0.75 + 1);
+    }
 
     @Override
     public String toString() {
@@ -23,8 +34,7 @@ public class ListGraph<T> implements Graph<T>, Serializable {
         List<String> finalList = new ArrayList<>();
         for (int i = 0; i < getNodes().size(); i++) {
             List<String> stringList = new ArrayList<>();
-            Set<Edge<T>> edgeSet = new HashSet<>(nodes.get(nodeList.get(i)));
-            edgeSet.forEach(e -> stringList.add(e.toString()));
+            nodes.get(nodeList.get(i)).values().forEach(e -> stringList.add(e.toString()));
             finalList.add("Nodes: "+i+" Name: "+nodeList.get(i).toString()+" Edges: "+ stringList);
         }
         return finalList.toString();
@@ -32,48 +42,94 @@ public class ListGraph<T> implements Graph<T>, Serializable {
 
     @Override
     public void add(T node) {
-        nodes.putIfAbsent(node, new HashSet<>());
+        nodes.putIfAbsent(node, new HashMap<>());
+    }
+
+    //used by GraphBuilder, the adjacency is sized for the node's final degree
+    void add(T node, int expectedDegree) {
+        nodes.putIfAbsent(node, new HashMap<>(capacity(expectedDegree)));
+    }
+
+    //used by GraphBuilder which has validated the nodes and weight already,
+    //returns false instead of throwing if node1 and node2 are connected
+    boolean link(T node1, T node2, String name, int weight) {
+        Map<T, Edge<T>> adjacent1 = nodes.get(node1);
+        if (adjacent1.putIfAbsent(node2, new Edge<>(name, node1, node2, weight)) != null) return false;
+        nodes.get(node2).put(node1, new Edge<>(name, node2, node1, weight));
+        return true;
     }
 
- //removes node and all edges from node
+ //removes node and all edges from node, every connection is stored at both ends
+ //so the neighbours of node are exactly the nodes holding an edge back to it
     @Override
     public void remove(T node) {
         if (!nodes.containsKey(node)) throw new NoSuchElementException("Nodes does not exist");
-        else edges.removeIf(edge -> edge.getSrc() == node || edge.getDestination() == node);
-        getNodes().forEach(n -> nodes.get(n).removeAll(getEdgesFrom(node)));
-        edges.removeAll(getEdgesFrom(node));
-        getNodes().forEach(n -> nodes.get(n).removeIf(e -> getEdgesFrom(n).size() == 1 && e.getDestination() == node));
-        nodes.remove(node);
+        unlink(node);
+    }
+
+    //removes many nodes in one pass, nothing is removed if any of them is missing
+    @Override
+    public void removeAll(Collection<T> toRemove) {
+        for (T node : toRemove)
+            if (!nodes.containsKey(node)) throw new NoSuchElementException("Nodes does not exist");
+        new HashSet<>(toRemove).forEach(this::unlink);
+    }
+
+    //O(degree), neighbours already removed in the same batch are skipped
+    private void unlink(T node) {
+        Map<T, Edge<T>> adjacent = nodes.remove(node);
+        for (T neighbour : adjacent.keySet()) {
+            Map<T, Edge<T>> back = nodes.get(neighbour);
+            if (back != null) back.remove(node);
+        }
     }
 
     @Override
     public void connect (T node1, T node2, String name, int weight) {
-        Set<Edge<T>> set1 = nodes.get(node1);
-        Set<Edge<T>> set2 = nodes.get(node2);
-        Edge<T> e1 = new Edge<>(name, node1, node2, weight);
-        Edge<T> e2 = new Edge<>(name, node2, node1, weight);
+        Map<T, Edge<T>> adjacent1 = nodes.get(node1);
+        Map<T, Edge<T>> adjacent2 = nodes.get(node2);
         if (weight < 0) throw new IllegalArgumentException("Negative weight");
-        if (!nodes.containsKey(node1) || !nodes.containsKey(node2)) {
+        if (adjacent1 == null || adjacent2 == null) {
             throw new NoSuchElementException("Node doesn't exist");
         }
-        for (Edge<T> e : set1) if (e.getDestination() == node1 && e.getSrc() == node2)
-            throw new IllegalStateException("Edge already exists");
-        for (Edge<T> e : set2) if (e.getDestination() == node2 && e.getSrc() == node1)
+        if (adjacent1.containsKey(node2) || adjacent2.containsKey(node1))
             throw new IllegalStateException("Edge already exists");
-        set1.add(e1);
-        set2.add(e2);
-        nodes.put(node1, set1);
-        nodes.put(node2, set2);
-        edges.add(e1);
-        edges.add(e2);
+        adjacent1.put(node2, new Edge<>(name, node1, node2, weight));
+        adjacent2.put(node1, new Edge<>(name, node2, node1, weight));
     }
 
     @Override
     public void setConnectionWeight(T node1, T node2, int weight) {
         if (!nodes.containsKey(node1) || !nodes.containsKey(node2))
             throw new NoSuchElementException("Nodes does not exist");
-            getEdgeBetween(node1, node2).setWeight(weight);
-            getEdgeBetween(node2, node1).setWeight(weight);
+        Edge<T> e1 = nodes.get(node1).get(node2);
+        Edge<T> e2 = nodes.get(node2).get(node1);
+        if (e1 == null || e2 == null) throw new NoSuchElementException("Edge does not exist");
+        e1.setWeight(weight);
+        e2.setWeight(weight);
+    }
+
+    //checks every update before changing anything, so a bad update leaves the graph as it was.
+    //weights live in the Edge objects, which are keyed by node, so nothing is rehashed
+    @Override
+    public void setConnectionWeights(Collection<WeightUpdate<T>> updates) {
+        List<Edge<T>> edges = new ArrayList<>(updates.size() * 2);
+        for (WeightUpdate<T> u : updates) {
+            if (u.getWeight() < 0) throw new IllegalArgumentException("Weight must be a positive integer.");
+            Map<T, Edge<T>> adjacent1 = nodes.get(u.getFrom());
+            Map<T, Edge<T>> adjacent2 = nodes.get(u.getTo());
+            if (adjacent1 == null || adjacent2 == null) throw new NoSuchElementException("Nodes does not exist");
+            Edge<T> e1 = adjacent1.get(u.getTo());
+            Edge<T> e2 = adjacent2.get(u.getFrom());
+            if (e1 == null || e2 == null) throw new NoSuchElementException("Edge does not exist");
+            edges.add(e1);
+            edges.add(e2);
+        }
+        int i = 0;
+        for (WeightUpdate<T> u : updates) {
+            edges.get(i++).setWeight(u.getWeight());
+            edges.get(i++).setWeight(u.getWeight());
+        }
     }
 
     @Override
@@ -81,88 +137,74 @@ public class ListGraph<T> implements Graph<T>, Serializable {
         return nodes.keySet();
     }
 
-    //all Edges connected to specific node
+    //all Edges connected to specific node, read-only view of the adjacency without copying
     @Override
     public Collection<Edge<T>> getEdgesFrom(T node) {
         if (!nodes.containsKey(node)) throw new NoSuchElementException("Nodes does not exist");
-        Set<Edge<T>> returnSet = new HashSet<>();
-        for (Edge<T> e : edges) {
-            if (e.getSrc() == node) returnSet.add(e);
-        }
-        returnSet.addAll(nodes.get(node));
-        return Collections.unmodifiableCollection(returnSet);
+        return Collections.unmodifiableCollection(nodes.get(node).values());
+    }
+
+    //walks the adjacency of node directly, used by the traversals
+    @Override
+    public void forEachEdge(T node, Consumer<Edge<T>> action) {
+        Map<T, Edge<T>> adjacent = nodes.get(node);
+        if (adjacent == null) throw new NoSuchElementException("Nodes does not exist");
+        adjacent.values().forEach(action);
     }
 
     //produces edges between nodes regardless of direction
     @Override
     public Edge<T> getEdgeBetween(T node1, T node2) {
         if (!nodes.containsKey(node1) || !nodes.containsKey(node2)) throw new NoSuchElementException("Nodes does not exist");
-        for (Edge<T> edge: nodes.get(node1)) {
-            if ((edge.getSrc() == node1 && edge.getDestination() == node2) ||
-                    (edge.getSrc() == node2 && edge.getDestination() == node1)) {
-                return edge;
-            }
-        }
-        for (Edge<T> edge: nodes.get(node2)) {
-            if ((edge.getSrc() == node1 && edge.getDestination() == node2) ||
-                    (edge.getSrc() == node2 && edge.getDestination() == node1)) {
-                return edge;
-            }
-        }
-        return null;
+        Edge<T> edge = nodes.get(node1).get(node2);
+        return edge != null ? edge : nodes.get(node2).get(node1);
     }
 
     @Override
     public void disconnect(T node1, T node2) {
         if (!nodes.containsKey(node1) || !nodes.containsKey(node2))
             throw new NoSuchElementException("Nodes does not exist");
-        if (getEdgeBetween(node1, node2) == null) throw new IllegalStateException("Edge does not exist");
-        else
-            edges.remove(getEdgeBetween(node1, node2));
-            edges.remove(getEdgeBetween(node2, node1));
-            nodes.get(node1).remove(getEdgeBetween(node1, node2));
-            nodes.get(node2).remove(getEdgeBetween(node2, node1));
+        Edge<T> e1 = nodes.get(node1).remove(node2);
+        Edge<T> e2 = nodes.get(node2).remove(node1);
+        if (e1 == null && e2 == null) throw new IllegalStateException("Edge does not exist");
     }
 
     @Override
     public boolean pathExists(T from, T to) {
-        Set<T> visited = new HashSet<>();
-        Map<T, T> via = new HashMap<>();
-        if (!nodes.containsKey(from) || !nodes.containsKey(to)) return false;
-        else depthFirstSearch(from, to, visited, via);
-        return visited.contains(to);
+        return findPath(from, to).exists();
     }
 
-    //collects path using depthFirstSearch which adds nodes to via Map
+    //collects path with the iterative search in PathSearch, null if there is none
     @Override
     public List<Edge<T>> getPath(T from, T to) {
-        Set<T> visited = new HashSet<>();
-        Map<T, T> via = new HashMap<>();
-        if (!pathExists(from, to)) return null;
-        else depthFirstSearch(to, from, visited, via);
-            return gatherPath(to, from, via);
-    }
-
-    //provides list of Edges from via Map created in DepthFirstSearch
-    private List<Edge<T>> gatherPath(T from, T to, Map<T, T> via){
-        List<Edge<T>> path = new ArrayList<>();
-        T where = to;
-        while (where != from){
-            T node = via.get(where);
-            Edge<T> e = getEdgeBetween(node, where);
-            path.add(e);
-            where = node;
-        }
-        Collections.reverse(path);
-        return path;
+        return findPath(from, to).getPath();
+    }
+
+    //cheapest path by total weight, see ShortestPath
+    @Override
+    public List<Edge<T>> getShortestPath(T from, T to) {
+        return findShortestPath(from, to).getPath();
     }
 
-    private void depthFirstSearch(T where, T fromWhere, Set<T> visited, Map<T, T> via){
-        visited.add(where);
-        via.put(where, fromWhere);
-        for(Edge<T> e : nodes.get(where))
-            if (!visited.contains(e.getDestination()))
-                depthFirstSearch(e.getDestination(), where, visited, via);
+    @Override
+    public PathResult<T> findPath(T from, T to) {
+        return PathSearch.find(this, from, to);
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to) {
+        return ShortestPath.find(this, from, to);
+    }
+
+    //A* mode, heuristic guides the search towards to
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic) {
+        return ShortestPath.find(this, from, to, heuristic);
+    }
+
+    @Override
+    public PathResult<T> findShortestPath(T from, T to, Heuristic<T> heuristic, SearchListener listener, BooleanSupplier isCancelled) {
+        return ShortestPath.find(this, from, to, heuristic, listener, isCancelled);
     }
 
 }
\ No newline at end of file
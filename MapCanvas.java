@@ -0,0 +1,626 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.TextAlignment;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+//Zoomable, pannable view of a map drawn onto three Canvas layers (image, connections, places)
+//instead of one Line, Circle and Text node each, for maps too big for the scene graph.
+//the layers are the size of the view, not of the map, and only what lies inside the visible
+//rectangle is drawn: places are found with a QuadTree range query and connections are bucketed
+//in square cells of the map. connections spanning many cells are kept in a short list checked every time.
+//detail drops with the zoom: below labelZoom names are left out, below minorZoom connections
+//shorter than a few pixels on screen, and below clusterZoom places closer than a cluster
+//on screen are drawn as one circle with their count. selected places are always drawn on their own.
+//the wheel zooms around the pointer and dragging pans. redraw only marks the view,
+//it is drawn once on the next frame however many changes came in between.
+//the background is one Image or a TilePyramid, of which only the tiles in view are loaded.
+//map coordinates are those of the places, screen coordinates those of this pane
+public class MapCanvas extends Pane {
+
+    private static final double RADIUS = 10;
+    //smallest circle drawn when zoomed out
+    private static final double MIN_RADIUS = 2;
+    //connections shorter than this on screen are minor
+    private static final double MINOR_PIXELS = 4;
+    //side of the screen squares places are clustered in
+    private static final double CLUSTER = 24;
+    //room around a place for its name, which is drawn above and to the right of it
+    private static final double LABEL_WIDTH = 120;
+    private static final double LABEL_HEIGHT = 30;
+    //the edge grid has about this many cells along the longer side of the map
+    private static final int GRID = 256;
+    //connections whose box covers more cells than this go on the long list
+    private static final int MAX_CELLS = 16;
+    private static final int BATCH = 4096;
+    private static final double MIN_SCALE = 1e-4;
+    private static final double MAX_SCALE = 64;
+    //side of the squares export renders the map in
+    private static final int EXPORT_TILE = 256;
+    //export keeps a strip of EXPORT_TILE rows of the map in one int array
+    private static final int MAX_STRIP = Integer.MAX_VALUE - 8;
+    //how long export waits before drawing a square again whose background is still loading
+    private static final int LOAD_WAIT_MILLIS = 20;
+
+    private final Canvas imageLayer = new Canvas();
+    private final Canvas edgeLayer = new Canvas();
+    private final Canvas placeLayer = new Canvas();
+
+    private Image image;
+    private TilePyramid tiles;
+
+    //export draws the finest tiles and notes when one of them is still loading
+    private boolean exporting;
+    private boolean tilesLoading;
+
+    //the part of the map covered by the edge grid
+    private double mapMinX;
+    private double mapMinY;
+    private double mapMaxX = 1;
+    private double mapMaxY = 1;
+    private double cell = 1;
+    private int cols = 1;
+    private int rows = 1;
+
+    private final QuadTree<Place> places = new QuadTree<>(new PlaceFormat());
+
+    private double[] x1 = new double[16];
+    private double[] y1 = new double[16];
+    private double[] x2 = new double[16];
+    private double[] y2 = new double[16];
+    private int edgeCount;
+    private int[][] edgeCells = new int[1][];
+    private int[] edgeCounts = new int[1];
+    private int[] longEdges = new int[16];
+    private int longCount;
+
+    //marks edges already drawn in the current pass, an edge can be in several cells
+    private int[] drawnIn = new int[16];
+    private int pass;
+
+    //x, y pairs of the highlighted path's stops
+    private double[] route = new double[0];
+
+    //map coordinates of the top left corner and screen pixels per map unit
+    private double originX;
+    private double originY;
+    private double scale = 1;
+
+    private double labelZoom = 0.75;
+    private double minorZoom = 0.5;
+    private double clusterZoom = 0.35;
+    private boolean labels = true;
+
+    private boolean dirty;
+
+    private double dragX;
+    private double dragY;
+
+    public MapCanvas() {
+        getChildren().addAll(imageLayer, edgeLayer, placeLayer);
+        addEventHandler(ScrollEvent.SCROLL, event -> {
+            zoom(Math.pow(1.0015, event.getDeltaY()), event.getX(), event.getY());
+            event.consume();
+        });
+        addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            pan(event.getX() - dragX, event.getY() - dragY);
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (!dirty) return;
+                dirty = false;
+                draw();
+            }
+        }.start();
+    }
+
+    //size of the view on screen
+    public void setViewSize(double width, double height) {
+        for (Canvas layer : new Canvas[]{imageLayer, edgeLayer, placeLayer}) {
+            layer.setWidth(width);
+            layer.setHeight(height);
+        }
+        setPrefSize(width, height);
+        redraw();
+    }
+
+    //drawn under everything, from map coordinates 0, 0 to its width and height
+    public void setImage(Image image) {
+        this.image = image;
+        this.tiles = null;
+        redraw();
+    }
+
+    //in place of an image, level 0 of the pyramid covers the map like the image would
+    public void setTiles(TilePyramid tiles) {
+        this.tiles = tiles;
+        this.image = null;
+        tiles.setOnLoaded(this::redraw);
+        redraw();
+    }
+
+    //the part of the map places are expected in, clears everything.
+    //connections outside it still show, they are just checked on every redraw
+    public void setMapBounds(double minX, double minY, double maxX, double maxY) {
+        mapMinX = minX;
+        mapMinY = minY;
+        mapMaxX = Math.max(maxX, minX + 1);
+        mapMaxY = Math.max(maxY, minY + 1);
+        cell = Math.max(mapMaxX - mapMinX, mapMaxY - mapMinY) / GRID;
+        cols = Math.max(1, (int) Math.ceil((mapMaxX - mapMinX) / cell));
+        rows = Math.max(1, (int) Math.ceil((mapMaxY - mapMinY) / cell));
+        clear();
+    }
+
+    public void clear() {
+        places.clear();
+        edgeCount = 0;
+        edgeCells = new int[cols * rows][];
+        edgeCounts = new int[cols * rows];
+        longCount = 0;
+        route = new double[0];
+        redraw();
+    }
+
+    //names are skipped when the map gets crowded, whatever the zoom
+    public void setLabels(boolean labels) {
+        this.labels = labels;
+        redraw();
+    }
+
+    //the zoom levels, in screen pixels per map unit, below which names are left out,
+    //short connections are left out and places are clustered
+    public void setLabelZoom(double labelZoom) {
+        this.labelZoom = labelZoom;
+        redraw();
+    }
+
+    public void setMinorZoom(double minorZoom) {
+        this.minorZoom = minorZoom;
+        redraw();
+    }
+
+    public void setClusterZoom(double clusterZoom) {
+        this.clusterZoom = clusterZoom;
+        redraw();
+    }
+
+    //drawn over the connections until cleared with an empty path
+    public void setRoute(List<Edge<Place>> path) {
+        route = new double[path.isEmpty() ? 0 : 2 * path.size() + 2];
+        for (int i = 0; i < path.size(); i++) {
+            route[2 * i] = path.get(i).getSrc().getX();
+            route[2 * i + 1] = path.get(i).getSrc().getY();
+        }
+        if (!path.isEmpty()) {
+            route[route.length - 2] = path.get(path.size() - 1).getDestination().getX();
+            route[route.length - 1] = path.get(path.size() - 1).getDestination().getY();
+        }
+        redraw();
+    }
+
+    public void addPlace(Place place) {
+        places.insert(place);
+        redraw();
+    }
+
+    public void addEdge(Place src, Place dest) {
+        int id = edgeCount++;
+        if (id == x1.length) {
+            x1 = Arrays.copyOf(x1, id * 2);
+            y1 = Arrays.copyOf(y1, id * 2);
+            x2 = Arrays.copyOf(x2, id * 2);
+            y2 = Arrays.copyOf(y2, id * 2);
+            drawnIn = Arrays.copyOf(drawnIn, id * 2);
+        }
+        x1[id] = src.getX();
+        y1[id] = src.getY();
+        x2[id] = dest.getX();
+        y2[id] = dest.getY();
+        double minX = Math.min(x1[id], x2[id]);
+        double maxX = Math.max(x1[id], x2[id]);
+        double minY = Math.min(y1[id], y2[id]);
+        double maxY = Math.max(y1[id], y2[id]);
+        redraw();
+        boolean inside = minX >= mapMinX && maxX <= mapMaxX && minY >= mapMinY && maxY <= mapMaxY;
+        if (!inside || (col(maxX) - col(minX) + 1) * (row(maxY) - row(minY) + 1) > MAX_CELLS) {
+            longEdges = append(longEdges, longCount++, id);
+            return;
+        }
+        for (int r = row(minY); r <= row(maxY); r++) {
+            for (int c = col(minX); c <= col(maxX); c++) {
+                int i = r * cols + c;
+                edgeCells[i] = append(edgeCells[i], edgeCounts[i]++, id);
+            }
+        }
+    }
+
+    private static int[] append(int[] list, int size, int value) {
+        if (list == null) list = new int[4];
+        else if (size == list.length) list = Arrays.copyOf(list, size * 2);
+        list[size] = value;
+        return list;
+    }
+
+    public double toMapX(double screenX) {
+        return originX + screenX / scale;
+    }
+
+    public double toMapY(double screenY) {
+        return originY + screenY / scale;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    //how far from a place, in map units, a click still hits it
+    public double getHitRadius() {
+        return radius() / scale;
+    }
+
+    //places are drawn as clusters, a click can't pick one out
+    public boolean isClustered() {
+        return scale < clusterZoom;
+    }
+
+    //keeps the map point under screenX, screenY where it is
+    public void zoom(double factor, double screenX, double screenY) {
+        double x = toMapX(screenX);
+        double y = toMapY(screenY);
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        originX = x - screenX / scale;
+        originY = y - screenY / scale;
+        redraw();
+    }
+
+    //moves the map dx, dy screen pixels
+    public void pan(double dx, double dy) {
+        originX -= dx / scale;
+        originY -= dy / scale;
+        redraw();
+    }
+
+    //zooms until the background and the map bounds just fit and centres them
+    public void fit() {
+        double[] bounds = bounds();
+        double minX = bounds[0];
+        double minY = bounds[1];
+        double maxX = bounds[2];
+        double maxY = bounds[3];
+        double width = Math.max(1, edgeLayer.getWidth());
+        double height = Math.max(1, edgeLayer.getHeight());
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, Math.min(width / (maxX - minX), height / (maxY - minY))));
+        originX = minX - (width / scale - (maxX - minX)) / 2;
+        originY = minY - (height / scale - (maxY - minY)) / 2;
+        redraw();
+    }
+
+    //map bounds grown to cover the background
+    private double[] bounds() {
+        if (image == null && tiles == null) return new double[]{mapMinX, mapMinY, mapMaxX, mapMaxY};
+        double width = image != null ? image.getWidth() : tiles.getWidth();
+        double height = image != null ? image.getHeight() : tiles.getHeight();
+        return new double[]{Math.min(mapMinX, 0), Math.min(mapMinY, 0), Math.max(mapMaxX, width), Math.max(mapMaxY, height)};
+    }
+
+    //after places, fills or the view have changed, draws on the next frame
+    public void redraw() {
+        dirty = true;
+    }
+
+    //a Task writing the whole map at full size as a PNG, rendered EXPORT_TILE pixels square at a time
+    //and written a strip of rows at a time, so the full image is never in memory.
+    //call on the FX thread and run the task on another, progress is the squares done
+    public Task<Void> export(File file) {
+        double[] bounds = bounds();
+        long width = (long) Math.ceil(bounds[2] - bounds[0]);
+        long height = (long) Math.ceil(bounds[3] - bounds[1]);
+        if (width * EXPORT_TILE > MAX_STRIP) throw new IllegalArgumentException("Map is too wide to export, " + width + " pixels");
+        if (height > Integer.MAX_VALUE) throw new IllegalArgumentException("Map is too high to export, " + height + " pixels");
+        return new ExportTask(file, bounds[0], bounds[1], (int) width, (int) height);
+    }
+
+    //every square is drawn and snapshot in its own runLater, between them the FX thread
+    //is free and the view is as the user left it
+    private class ExportTask extends Task<Void> {
+        private final File file;
+        private final double minX;
+        private final double minY;
+        private final int width;
+        private final int height;
+        private final SnapshotParameters params = new SnapshotParameters();
+        private final WritableImage shot = new WritableImage(EXPORT_TILE, EXPORT_TILE);
+
+        ExportTask(File file, double minX, double minY, int width, int height) {
+            this.file = file;
+            this.minX = minX;
+            this.minY = minY;
+            this.width = width;
+            this.height = height;
+            params.setViewport(new Rectangle2D(0, 0, EXPORT_TILE, EXPORT_TILE));
+        }
+
+        @Override
+        protected Void call() throws Exception {
+            long total = (long) ((width - 1) / EXPORT_TILE + 1) * ((height - 1) / EXPORT_TILE + 1);
+            long done = 0;
+            updateProgress(0, total);
+            int[] strip = new int[width * EXPORT_TILE];
+            try (PngWriter png = new PngWriter(new BufferedOutputStream(new FileOutputStream(file)), width, height)) {
+                for (int top = 0; top < height; top += EXPORT_TILE) {
+                    int rows = Math.min(EXPORT_TILE, height - top);
+                    for (int left = 0; left < width; left += EXPORT_TILE) {
+                        int x = left;
+                        int y = top;
+                        while (true) {
+                            FutureTask<Boolean> square = new FutureTask<>(() -> shoot(x, y, rows, strip));
+                            Platform.runLater(square);
+                            if (square.get()) break;
+                            Thread.sleep(LOAD_WAIT_MILLIS);
+                        }
+                        updateProgress(++done, total);
+                    }
+                    png.writeRows(strip, rows);
+                }
+            }
+            return null;
+        }
+
+        //on the FX thread, the square at left, top into strip, false if its background is still loading
+        private boolean shoot(int left, int top, int rows, int[] strip) {
+            double viewWidth = edgeLayer.getWidth();
+            double viewHeight = edgeLayer.getHeight();
+            double viewX = originX;
+            double viewY = originY;
+            double viewScale = scale;
+            setViewSize(EXPORT_TILE, EXPORT_TILE);
+            originX = minX + left;
+            originY = minY + top;
+            scale = 1;
+            exporting = true;
+            tilesLoading = false;
+            try {
+                draw();
+                if (tilesLoading) return false;
+                snapshot(params, shot);
+                shot.getPixelReader().getPixels(0, 0, Math.min(EXPORT_TILE, width - left), rows,
+                        PixelFormat.getIntArgbInstance(), strip, left, width);
+                return true;
+            } finally {
+                exporting = false;
+                originX = viewX;
+                originY = viewY;
+                scale = viewScale;
+                setViewSize(viewWidth, viewHeight);
+            }
+        }
+    }
+
+    private double radius() {
+        return Math.max(MIN_RADIUS, Math.min(RADIUS, RADIUS * scale));
+    }
+
+    private double screenX(double x) {
+        return (x - originX) * scale;
+    }
+
+    private double screenY(double y) {
+        return (y - originY) * scale;
+    }
+
+    private void draw() {
+        double width = edgeLayer.getWidth();
+        double height = edgeLayer.getHeight();
+        double minX = toMapX(0);
+        double minY = toMapY(0);
+        double maxX = toMapX(width);
+        double maxY = toMapY(height);
+        drawImage(imageLayer.getGraphicsContext2D(), width, height, minX, minY, maxX, maxY);
+        drawEdges(edgeLayer.getGraphicsContext2D(), width, height, minX, minY, maxX, maxY);
+        drawPlaces(placeLayer.getGraphicsContext2D(), width, height, minX, minY, maxX, maxY);
+    }
+
+    //only the visible part of the image is scaled onto the layer
+    private void drawImage(GraphicsContext gc, double width, double height, double minX, double minY, double maxX, double maxY) {
+        gc.clearRect(0, 0, width, height);
+        if (tiles != null) drawTiles(gc, minX, minY, maxX, maxY);
+        if (image == null) return;
+        double sx = Math.max(0, minX);
+        double sy = Math.max(0, minY);
+        double ex = Math.min(image.getWidth(), maxX);
+        double ey = Math.min(image.getHeight(), maxY);
+        if (sx >= ex || sy >= ey) return;
+        gc.drawImage(image, sx, sy, ex - sx, ey - sy, screenX(sx), screenY(sy), (ex - sx) * scale, (ey - sy) * scale);
+    }
+
+    //tiles of the finest level that isn't sharper than the screen, a tile still loading is
+    //stood in for by its part of a coarser tile already in memory
+    private void drawTiles(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        int level = exporting ? 0 : Math.max(0, Math.min(tiles.getLevels() - 1, (int) Math.floor(-Math.log(scale) / Math.log(2))));
+        int size = tiles.getTileSize();
+        double span = size * (double) (1L << level);
+        int firstCol = Math.max(0, (int) Math.floor(minX / span));
+        int firstRow = Math.max(0, (int) Math.floor(minY / span));
+        int lastCol = Math.min(tiles.cols(level) - 1, (int) Math.floor(maxX / span));
+        int lastRow = Math.min(tiles.rows(level) - 1, (int) Math.floor(maxY / span));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                Image tile = tiles.tile(level, col, row);
+                if (exporting && tile.getProgress() < 1 && !tile.isError()) tilesLoading = true;
+                if (tile.getProgress() >= 1 && !tile.isError()) {
+                    drawTile(gc, tile, 0, 0, tile.getWidth(), tile.getHeight(), col * span, row * span, 1L << level);
+                    continue;
+                }
+                for (int up = level + 1; up < tiles.getLevels(); up++) {
+                    int f = 1 << (up - level);
+                    Image coarse = tiles.loaded(up, col / f, row / f);
+                    if (coarse == null) continue;
+                    double sx = (col % f) * size / (double) f;
+                    double sy = (row % f) * size / (double) f;
+                    double sw = Math.min(size / (double) f, coarse.getWidth() - sx);
+                    double sh = Math.min(size / (double) f, coarse.getHeight() - sy);
+                    if (sw > 0 && sh > 0) drawTile(gc, coarse, sx, sy, sw, sh, col * span, row * span, 1L << up);
+                    break;
+                }
+            }
+        }
+    }
+
+    //the part sx, sy, sw, sh of a tile whose pixels are pixelSize map units wide, drawn from mapX, mapY
+    private void drawTile(GraphicsContext gc, Image tile, double sx, double sy, double sw, double sh, double mapX, double mapY, long pixelSize) {
+        gc.drawImage(tile, sx, sy, sw, sh, screenX(mapX), screenY(mapY), sw * pixelSize * scale, sh * pixelSize * scale);
+    }
+
+    private void drawEdges(GraphicsContext gc, double width, double height, double minX, double minY, double maxX, double maxY) {
+        gc.clearRect(0, 0, width, height);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+        gc.beginPath();
+        //squared map length below which a connection is minor at this zoom
+        double minor = scale < minorZoom ? MINOR_PIXELS * MINOR_PIXELS / (scale * scale) : 0;
+        pass++;
+        int inPath = 0;
+        if (maxX >= mapMinX && minX <= mapMaxX && maxY >= mapMinY && minY <= mapMaxY) {
+            for (int r = row(minY); r <= row(maxY); r++) {
+                for (int c = col(minX); c <= col(maxX); c++) {
+                    int i = r * cols + c;
+                    for (int k = 0; k < edgeCounts[i]; k++) {
+                        int id = edgeCells[i][k];
+                        if (drawnIn[id] == pass) continue;
+                        drawnIn[id] = pass;
+                        if (length2(id) >= minor) inPath = segment(gc, id, inPath);
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < longCount; k++) {
+            int id = longEdges[k];
+            if (Math.max(x1[id], x2[id]) < minX || Math.min(x1[id], x2[id]) > maxX
+                    || Math.max(y1[id], y2[id]) < minY || Math.min(y1[id], y2[id]) > maxY) continue;
+            if (length2(id) >= minor) inPath = segment(gc, id, inPath);
+        }
+        gc.stroke();
+        if (route.length == 0) return;
+        gc.setStroke(Color.RED);
+        gc.setLineWidth(3);
+        gc.beginPath();
+        gc.moveTo(screenX(route[0]), screenY(route[1]));
+        for (int i = 2; i < route.length; i += 2) gc.lineTo(screenX(route[i]), screenY(route[i + 1]));
+        gc.stroke();
+    }
+
+    private double length2(int id) {
+        double dx = x2[id] - x1[id];
+        double dy = y2[id] - y1[id];
+        return dx * dx + dy * dy;
+    }
+
+    //adds one line to the path, strokes and starts a new path every BATCH lines
+    private int segment(GraphicsContext gc, int id, int inPath) {
+        gc.moveTo(screenX(x1[id]), screenY(y1[id]));
+        gc.lineTo(screenX(x2[id]), screenY(y2[id]));
+        if (++inPath < BATCH) return inPath;
+        gc.stroke();
+        gc.beginPath();
+        return 0;
+    }
+
+    //places are searched a name's width to the left and below the view, their names may reach into it
+    private void drawPlaces(GraphicsContext gc, double width, double height, double minX, double minY, double maxX, double maxY) {
+        gc.clearRect(0, 0, width, height);
+        boolean named = labels && scale >= labelZoom;
+        double margin = radius() / scale;
+        List<Place> visible = named
+                ? places.range(minX - LABEL_WIDTH / scale, minY - margin, maxX + margin, maxY + LABEL_HEIGHT / scale)
+                : places.range(minX - margin, minY - margin, maxX + margin, maxY + margin);
+        if (isClustered()) {
+            drawClusters(gc, visible, width, height);
+            return;
+        }
+        double r = radius();
+        Paint fill = null;
+        for (Place p : visible) {
+            if (p.getFill() != fill) {
+                fill = p.getFill();
+                gc.setFill(fill);
+            }
+            gc.fillOval(screenX(p.getX()) - r, screenY(p.getY()) - r, 2 * r, 2 * r);
+        }
+        if (named) {
+            gc.setFill(Color.BLACK);
+            gc.setTextAlign(TextAlignment.LEFT);
+            for (Place p : visible) gc.fillText(p.getName(), screenX(p.getX()), screenY(p.getY()) - 15);
+        }
+    }
+
+    //places are counted per CLUSTER square of the screen and drawn at their mean position,
+    //a square holding one place draws it as it is
+    private void drawClusters(GraphicsContext gc, List<Place> visible, double width, double height) {
+        int across = (int) Math.ceil(width / CLUSTER) + 1;
+        int down = (int) Math.ceil(height / CLUSTER) + 1;
+        int[] count = new int[across * down];
+        double[] sumX = new double[count.length];
+        double[] sumY = new double[count.length];
+        for (Place p : visible) {
+            double x = screenX(p.getX());
+            double y = screenY(p.getY());
+            int c = Math.max(0, Math.min(across - 1, (int) (x / CLUSTER)));
+            int r = Math.max(0, Math.min(down - 1, (int) (y / CLUSTER)));
+            count[r * across + c]++;
+            sumX[r * across + c] += x;
+            sumY[r * across + c] += y;
+        }
+        gc.setFill(Color.BLUE);
+        for (int i = 0; i < count.length; i++) {
+            if (count[i] == 0) continue;
+            double r = count[i] == 1 ? MIN_RADIUS : Math.min(CLUSTER / 2, MIN_RADIUS + 1.5 * Math.log(count[i]));
+            gc.fillOval(sumX[i] / count[i] - r, sumY[i] / count[i] - r, 2 * r, 2 * r);
+        }
+        gc.setFill(Color.WHITE);
+        gc.setTextAlign(TextAlignment.CENTER);
+        for (int i = 0; i < count.length; i++) {
+            if (count[i] < 100) continue;
+            String text = count[i] < 1000 ? Integer.toString(count[i]) : count[i] / 1000 + "k";
+            gc.fillText(text, sumX[i] / count[i], sumY[i] / count[i] + 4);
+        }
+        for (Place p : visible) {
+            if (Color.BLUE.equals(p.getFill())) continue;
+            gc.setFill(p.getFill());
+            gc.fillOval(screenX(p.getX()) - RADIUS, screenY(p.getY()) - RADIUS, 2 * RADIUS, 2 * RADIUS);
+        }
+    }
+
+    private int col(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) ((x - mapMinX) / cell)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - mapMinY) / cell)));
+    }
+}
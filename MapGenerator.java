@@ -0,0 +1,330 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//random maps for load tests, far bigger than europa.graph.
+//  GEOMETRIC   places scattered over the map, each connected to the places within a radius
+//              chosen so the average degree comes out close to degree
+//  GRID        places on a jittered square lattice connected to their 4 neighbours
+//  SCALE_FREE  preferential attachment, every new place connects to degree / 2 places picked
+//              in proportion to how connected they already are, giving hubs like a transport network
+//connections are named by length, short ones Train or Boat and long ones Airplane, and weighted
+//by travel time derived from the distance. the same settings and seed always give the same map.
+//usage: java MapGenerator geometric|grid|scalefree nodes out.graph|out.snapshot
+//                         [--degree d] [--seed s] [--size pixels] [--image file:europa.gif]
+public class MapGenerator {
+
+    public enum Kind { GEOMETRIC, GRID, SCALE_FREE }
+
+    private final Kind kind;
+    private final int nodes;
+
+    private int degree = 4;
+    private long seed = 1;
+    private double width;
+    private double height;
+
+    public MapGenerator(Kind kind, int nodes) {
+        if (nodes < 2) throw new IllegalArgumentException("At least 2 nodes");
+        this.kind = kind;
+        this.nodes = nodes;
+        //about 20 pixels between neighbouring places
+        width = height = Math.max(600, 20 * Math.sqrt(nodes));
+    }
+
+    //wanted average number of connections per place, GRID always has 4
+    public void setDegree(int degree) {
+        if (degree < 2) throw new IllegalArgumentException("Degree must be at least 2");
+        this.degree = degree;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setSize(double width, double height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Size must be positive");
+        this.width = width;
+        this.height = height;
+    }
+
+    //places are named P0, P1, ... in the order they were generated
+    public <T> ListGraph<T> generate(NodeFormat<T> format) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] xs = new double[nodes];
+        double[] ys = new double[nodes];
+        Links links = new Links(nodes * (kind == Kind.GRID ? 2 : Math.max(1, degree / 2)));
+        switch (kind) {
+            case GEOMETRIC:
+                geometric(random, xs, ys, links);
+                break;
+            case GRID:
+                grid(random, xs, ys, links);
+                break;
+            default:
+                scaleFree(random, xs, ys, links);
+        }
+
+        GraphBuilder<T> builder = new GraphBuilder<>(nodes, links.size);
+        @SuppressWarnings("unchecked")
+        T[] places = (T[]) new Object[nodes];
+        for (int i = 0; i < nodes; i++) {
+            places[i] = format.create("P" + i, round(xs[i]), round(ys[i]));
+            builder.addNode(places[i]);
+        }
+        //mean distance between neighbouring places, connection types are picked relative to it
+        double spacing = Math.sqrt(width * height / nodes);
+        for (int i = 0; i < links.size; i++) {
+            int a = links.from[i];
+            int b = links.to[i];
+            double distance = Math.hypot(xs[a] - xs[b], ys[a] - ys[b]);
+            if (distance > 8 * spacing) {
+                builder.addEdge(places[a], places[b], "Airplane", 3 + (int) Math.round(distance / 50));
+            } else if (random.nextInt(5) == 0) {
+                builder.addEdge(places[a], places[b], "Boat", Math.max(1, (int) Math.round(distance / 6)));
+            } else {
+                builder.addEdge(places[a], places[b], "Train", Math.max(1, (int) Math.round(distance / 10)));
+            }
+        }
+        return builder.build();
+    }
+
+    //one decimal like the coordinates PathFinder saves
+    private static double round(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+
+    //buckets the places into cells as wide as the radius so only the 3x3 cells around
+    //a place have to be searched
+    private void geometric(SplittableRandom random, double[] xs, double[] ys, Links links) {
+        for (int i = 0; i < nodes; i++) {
+            xs[i] = random.nextDouble() * width;
+            ys[i] = random.nextDouble() * height;
+        }
+        double radius = Math.sqrt(degree * width * height / (Math.PI * nodes));
+        int cols = Math.max(1, (int) (width / radius));
+        int rows = Math.max(1, (int) (height / radius));
+        int[] cellOf = new int[nodes];
+        int[] start = new int[cols * rows + 1];
+        for (int i = 0; i < nodes; i++) {
+            int cx = Math.min(cols - 1, (int) (xs[i] / width * cols));
+            int cy = Math.min(rows - 1, (int) (ys[i] / height * rows));
+            cellOf[i] = cy * cols + cx;
+            start[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) start[c + 1] += start[c];
+        int[] order = new int[nodes];
+        int[] fill = Arrays.copyOf(start, cols * rows);
+        for (int i = 0; i < nodes; i++) order[fill[cellOf[i]]++] = i;
+
+        double r2 = radius * radius;
+        for (int i = 0; i < nodes; i++) {
+            int cx = cellOf[i] % cols;
+            int cy = cellOf[i] / cols;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(rows - 1, cy + 1); y++) {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(cols - 1, cx + 1); x++) {
+                    int c = y * cols + x;
+                    for (int k = start[c]; k < start[c + 1]; k++) {
+                        int j = order[k];
+                        if (j <= i) continue;
+                        double dx = xs[i] - xs[j];
+                        double dy = ys[i] - ys[j];
+                        if (dx * dx + dy * dy <= r2) links.add(i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    private void grid(SplittableRandom random, double[] xs, double[] ys, Links links) {
+        int cols = (int) Math.ceil(Math.sqrt(nodes));
+        int rows = (nodes + cols - 1) / cols;
+        double dx = width / cols;
+        double dy = height / rows;
+        for (int i = 0; i < nodes; i++) {
+            xs[i] = (i % cols + 0.5 + (random.nextDouble() - 0.5) / 2) * dx;
+            ys[i] = (i / cols + 0.5 + (random.nextDouble() - 0.5) / 2) * dy;
+            if (i % cols > 0) links.add(i - 1, i);
+            if (i >= cols) links.add(i - cols, i);
+        }
+    }
+
+    //the first connection of every new place goes to a place picked in proportion to its degree,
+    //which grows the hubs. every end of every connection is listed once in ends, so a uniform pick
+    //from ends is such a pick. the other connections go to random earlier places in the cells
+    //around the new place, the way regional lines feed a hub. early places with too few
+    //neighbours yet pick all their connections the first way
+    private void scaleFree(SplittableRandom random, double[] xs, double[] ys, Links links) {
+        for (int i = 0; i < nodes; i++) {
+            xs[i] = random.nextDouble() * width;
+            ys[i] = random.nextDouble() * height;
+        }
+        int m = Math.min(Math.max(1, degree / 2), nodes - 1);
+
+        //cells holding about 2m places each, members listed by increasing index
+        int side = Math.max(1, (int) Math.sqrt(nodes / (2.0 * m)));
+        int[] cellOf = new int[nodes];
+        int[] start = new int[side * side + 1];
+        for (int i = 0; i < nodes; i++) {
+            int cx = Math.min(side - 1, (int) (xs[i] / width * side));
+            int cy = Math.min(side - 1, (int) (ys[i] / height * side));
+            cellOf[i] = cy * side + cx;
+            start[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < side * side; c++) start[c + 1] += start[c];
+        int[] members = new int[nodes];
+        int[] fill = Arrays.copyOf(start, side * side);
+        for (int i = 0; i < nodes; i++) members[fill[cellOf[i]]++] = i;
+        //earlier places seen so far in each cell
+        int[] earlier = new int[side * side];
+
+        int[] ends = new int[2 * (m * (m + 1) / 2 + (nodes - m - 1) * m)];
+        int count = 0;
+        //the first m + 1 places are all connected to each other
+        for (int i = 0; i <= m; i++) {
+            for (int j = 0; j < i; j++) {
+                links.add(j, i);
+                ends[count++] = j;
+                ends[count++] = i;
+            }
+            earlier[cellOf[i]]++;
+        }
+        int[] picked = new int[m];
+        int[] around = new int[9];
+        for (int i = m + 1; i < nodes; i++) {
+            int cx = cellOf[i] % side;
+            int cy = cellOf[i] / side;
+            int cells = 0;
+            int local = 0;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(side - 1, cy + 1); y++) {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(side - 1, cx + 1); x++) {
+                    around[cells++] = y * side + x;
+                    local += earlier[y * side + x];
+                }
+            }
+            int found = 0;
+            while (found < m) {
+                int target;
+                if (found == 0 || local < 2 * m) {
+                    target = ends[random.nextInt(count)];
+                } else {
+                    int r = random.nextInt(local);
+                    int c = 0;
+                    while (r >= earlier[around[c]]) r -= earlier[around[c++]];
+                    target = members[start[around[c]] + r];
+                }
+                boolean seen = false;
+                for (int k = 0; k < found; k++) seen |= picked[k] == target;
+                if (!seen) picked[found++] = target;
+            }
+            for (int k = 0; k < m; k++) {
+                links.add(picked[k], i);
+                ends[count++] = picked[k];
+                ends[count++] = i;
+            }
+            earlier[cellOf[i]]++;
+        }
+    }
+
+    //connections as pairs of place indexes, grown like GraphBuilder's weights
+    private static class Links {
+        private int[] from;
+        private int[] to;
+        private int size;
+
+        Links(int expected) {
+            from = new int[Math.max(16, expected)];
+            to = new int[Math.max(16, expected)];
+        }
+
+        void add(int a, int b) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = a;
+            to[size++] = b;
+        }
+    }
+
+    //plain name and coordinates, avoids creating a JavaFX Place per node when writing files.
+    //hashed by name so the nodes, and the file, come out in the same order every run
+    private static class Site {
+        private final String name;
+        private final double x;
+        private final double y;
+
+        Site(String name, double x, double y) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Site && ((Site) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static final NodeFormat<Site> SITES = new NodeFormat<>() {
+        @Override
+        public Site create(String name, double x, double y) {
+            return new Site(name, x, y);
+        }
+
+        @Override
+        public String getName(Site node) {
+            return node.name;
+        }
+
+        @Override
+        public double getX(Site node) {
+            return node.x;
+        }
+
+        @Override
+        public double getY(Site node) {
+            return node.y;
+        }
+    };
+
+    //.graph files are written as text, anything else as a GraphSnapshot
+    public static void main(String[] args) throws IOException {
+        String usage = "usage: java MapGenerator geometric|grid|scalefree nodes out.graph|out.snapshot"
+                + " [--degree d] [--seed s] [--size pixels] [--image file:europa.gif]";
+        if (args.length < 3) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+        Kind kind;
+        if (args[0].equals("geometric")) kind = Kind.GEOMETRIC;
+        else if (args[0].equals("grid")) kind = Kind.GRID;
+        else if (args[0].equals("scalefree")) kind = Kind.SCALE_FREE;
+        else throw new IllegalArgumentException("Unknown kind " + args[0] + ", " + usage);
+        MapGenerator generator = new MapGenerator(kind, Integer.parseInt(args[1]));
+        Path out = Path.of(args[2]);
+        String image = "file:europa.gif";
+        for (int i = 3; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            if (args[i].equals("--degree")) generator.setDegree(Integer.parseInt(value));
+            else if (args[i].equals("--seed")) generator.setSeed(Long.parseLong(value));
+            else if (args[i].equals("--size")) generator.setSize(Double.parseDouble(value), Double.parseDouble(value));
+            else if (args[i].equals("--image")) image = value;
+            else throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+        long start = System.nanoTime();
+        ListGraph<Site> graph = generator.generate(SITES);
+        if (out.toString().endsWith(".graph")) new GraphWriter<>(SITES).write(image, graph, out);
+        else GraphSnapshot.write(graph, SITES, out);
+        int edges = 0;
+        for (Site s : graph.getNodes()) edges += graph.getEdgesFrom(s).size();
+        System.err.printf("%d places, %d connections written to %s in %d ms%n",
+                graph.getNodes().size(), edges / 2, out, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,69 @@
+import java.io.StringWriter;
+
+/**
+ Generates every kind of map twice with the same settings and seed, the two
+ .graph files written from them must be identical. A different seed must give
+ a different map, and every place asked for must be there.
+ */
+public class MapGeneratorTest {
+
+	private static final int NODES = 3000;
+
+	public static void main(String[] args) throws Exception {
+		var app = new MapGeneratorTest();
+		for (MapGenerator.Kind kind : MapGenerator.Kind.values()) {
+			app.test1_same_seed_same_map(kind);
+			app.test2_other_seed_other_map(kind);
+		}
+		System.out.printf("%n ==> MapGenerator gives the same map for the same seed. <== %n");
+	}
+
+	private void test1_same_seed_same_map(MapGenerator.Kind kind) throws Exception {
+		String first = generate(kind, 42);
+		String second = generate(kind, 42);
+		if (!first.equals(second))
+			throw new Exception("Error: two " + kind + " maps with seed 42 should be written the same.");
+		int places = first.split("\n")[1].split(";").length / 3;
+		if (places != NODES)
+			throw new Exception("Error: " + kind + " map should have " + NODES + " places, has " + places);
+	}
+
+	private void test2_other_seed_other_map(MapGenerator.Kind kind) throws Exception {
+		if (generate(kind, 42).equals(generate(kind, 43)))
+			throw new Exception("Error: " + kind + " maps with seeds 42 and 43 should differ.");
+	}
+
+	//places are named P0@x,y, P1@x,y, ... so the coordinates are compared along with the connections
+	private String generate(MapGenerator.Kind kind, long seed) throws Exception {
+		MapGenerator generator = new MapGenerator(kind, NODES);
+		generator.setDegree(6);
+		generator.setSeed(seed);
+		NodeFormat<String> format = new NodeFormat<>() {
+			@Override
+			public String create(String name, double x, double y) {
+				return name + "@" + x + "," + y;
+			}
+
+			@Override
+			public String getName(String node) {
+				return node;
+			}
+
+			@Override
+			public double getX(String node) {
+				return 0;
+			}
+
+			@Override
+			public double getY(String node) {
+				return 0;
+			}
+		};
+		ListGraph<String> graph = generator.generate(format);
+		StringWriter out = new StringWriter();
+		GraphWriter<String> writer = new GraphWriter<>(format);
+		writer.setSorted(true);
+		writer.write("file:europa.gif", graph, out);
+		return out.toString();
+	}
+}
@@ -0,0 +1,246 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+
+//read only view of a GraphSnapshot file. every section is memory mapped with FileChannel.map,
+//so opening only reads the header and queries read straight from the mapped pages without
+//creating Edge objects. each section may be up to 2 GB.
+//any number of threads may query at once, each keeps its own search arrays
+public class MappedGraph implements Closeable {
+
+    private final FileChannel channel;
+    private final int n;
+    private final int m;
+    private final IntBuffer names;
+    private final DoubleBuffer xs;
+    private final DoubleBuffer ys;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer labels;
+    private final IntBuffer sorted;
+    private final IntBuffer poolOffsets;
+    private final ByteBuffer pool;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(nodeCount()));
+
+    MappedGraph(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = map(0, GraphSnapshot.HEADER);
+            if (header.getInt(0) != GraphSnapshot.MAGIC) throw new IOException("Not a graph snapshot: " + file);
+            if (header.getInt(4) != GraphSnapshot.VERSION) throw new IOException("Unsupported snapshot version " + header.getInt(4));
+            n = header.getInt(8);
+            m = header.getInt(12);
+            int s = header.getInt(16);
+            long[] sections = new long[9];
+            for (int i = 0; i < sections.length; i++) sections[i] = header.getLong(24 + 8 * i);
+            names = map(sections[0], 4L * n).asIntBuffer();
+            xs = map(sections[1], 8L * n).asDoubleBuffer();
+            ys = map(sections[2], 8L * n).asDoubleBuffer();
+            offsets = map(sections[3], 4L * (n + 1)).asIntBuffer();
+            targets = map(sections[4], 4L * m).asIntBuffer();
+            weights = map(sections[5], 4L * m).asIntBuffer();
+            labels = map(sections[6], 4L * m).asIntBuffer();
+            sorted = map(sections[7], 4L * n).asIntBuffer();
+            poolOffsets = map(sections[8], 4L * (s + 1)).asIntBuffer();
+            pool = map(sections[8] + 4L * (s + 1), poolOffsets.get(s));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer map(long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) throw new IOException("Snapshot section larger than 2 GB");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    //directed edges, twice the number of connections
+    public int edgeCount() {
+        return m;
+    }
+
+    public String name(int node) {
+        return string(names.get(node));
+    }
+
+    public double x(int node) {
+        return xs.get(node);
+    }
+
+    public double y(int node) {
+        return ys.get(node);
+    }
+
+    public int degree(int node) {
+        return offsets.get(node + 1) - offsets.get(node);
+    }
+
+    public int targetAt(int node, int k) {
+        return targets.get(offsets.get(node) + k);
+    }
+
+    public int weightAt(int node, int k) {
+        return weights.get(offsets.get(node) + k);
+    }
+
+    public String nameAt(int node, int k) {
+        return string(labels.get(offsets.get(node) + k));
+    }
+
+    //binary search over the sorted name index, -1 if there is no such node
+    public int indexOf(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int node = sorted.get(mid);
+            int c = compare(names.get(node), key);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return node;
+        }
+        return -1;
+    }
+
+    public int[] shortestPath(int from, int to) {
+        return shortestPath(from, to, node -> 0);
+    }
+
+    //Dijkstra or A* over the mapped arrays, node ids from -> to or null if no path exists.
+    //the search arrays are reused by the next query on the same thread
+    public int[] shortestPath(int from, int to, IntUnaryOperator estimate) {
+        if (from < 0 || from >= n || to < 0 || to >= n) throw new NoSuchElementException("Nodes does not exist");
+        Scratch s = scratch.get();
+        int visit = s.start();
+        //stamp == visit means reached, stamp == -visit means settled
+        int[] stamp = s.stamp;
+        int[] dist = s.dist;
+        int[] parent = s.parent;
+        IntHeap heap = s.heap;
+        stamp[from] = visit;
+        dist[from] = 0;
+        parent[from] = -1;
+        heap.push(estimate.applyAsInt(from), from);
+        while (!heap.isEmpty()) {
+            int where = heap.peekNode();
+            heap.pop();
+            if (stamp[where] == -visit) continue;
+            stamp[where] = -visit;
+            if (where == to) {
+                int length = 0;
+                for (int w = to; w != -1; w = parent[w]) length++;
+                int[] path = new int[length];
+                for (int w = to; w != -1; w = parent[w]) path[--length] = w;
+                return path;
+            }
+            for (int k = offsets.get(where); k < offsets.get(where + 1); k++) {
+                int next = targets.get(k);
+                if (stamp[next] == -visit) continue;
+                int c = IntHeap.add(dist[where], weights.get(k));
+                if (stamp[next] != visit || c < dist[next]) {
+                    stamp[next] = visit;
+                    dist[next] = c;
+                    parent[next] = where;
+                    heap.push(IntHeap.add(c, estimate.applyAsInt(next)), next);
+                }
+            }
+        }
+        return null;
+    }
+
+    //the cheapest path between two named places as Edges, for callers that speak Graph<String>
+    public PathResult<String> findShortestPath(String from, String to) {
+        int s = indexOf(from);
+        int t = indexOf(to);
+        if (s < 0 || t < 0) return PathResult.none();
+        int[] path = shortestPath(s, t);
+        if (path == null) return PathResult.none();
+        List<Edge<String>> edges = new ArrayList<>(path.length);
+        for (int i = 1; i < path.length; i++) {
+            int a = path[i - 1];
+            int k = offsets.get(a);
+            while (targets.get(k) != path[i]) k++;
+            edges.add(new Edge<>(string(labels.get(k)), name(a), name(path[i]), weights.get(k)));
+        }
+        return PathResult.of(edges);
+    }
+
+    //materializes the snapshot into graph, each connection once
+    public <T> void load(Graph<T> graph, NodeFormat<T> format) {
+        List<T> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            T node = format.create(name(i), x(i), y(i));
+            nodes.add(node);
+            graph.add(node);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int k = offsets.get(i); k < offsets.get(i + 1); k++) {
+                int j = targets.get(k);
+                if (i <= j && graph.getEdgeBetween(nodes.get(i), nodes.get(j)) == null)
+                    graph.connect(nodes.get(i), nodes.get(j), string(labels.get(k)), weights.get(k));
+            }
+        }
+    }
+
+    private String string(int id) {
+        int start = poolOffsets.get(id);
+        byte[] bytes = new byte[poolOffsets.get(id + 1) - start];
+        pool.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compare(int id, byte[] key) {
+        int start = poolOffsets.get(id);
+        int length = poolOffsets.get(id + 1) - start;
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int c = Integer.compare(pool.get(start + i) & 0xff, key[i] & 0xff);
+            if (c != 0) return c;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //search arrays of one thread, a node belongs to the current search when its stamp is +-search
+    private static class Scratch {
+        final int[] stamp;
+        final int[] dist;
+        final int[] parent;
+        final IntHeap heap = new IntHeap();
+        int search;
+
+        Scratch(int n) {
+            stamp = new int[n];
+            dist = new int[n];
+            parent = new int[n];
+        }
+
+        int start() {
+            heap.clear();
+            if (++search == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                search = 1;
+            }
+            return search;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+//how nodes of type T are read from and written to the name;x;y triples of a .graph file
+public interface NodeFormat<T> {
+
+    T create(String name, double x, double y);
+
+    String getName(T node);
+
+    double getX(T node);
+
+    double getY(T node);
+
+    //plain names for Graph<String>, coordinates are dropped when reading and written as 0
+    static NodeFormat<String> names() {
+        return new NodeFormat<>() {
+            @Override
+            public String create(String name, double x, double y) {
+                return name;
+            }
+
+            @Override
+            public String getName(String node) {
+                return node;
+            }
+
+            @Override
+            public double getX(String node) {
+                return 0;
+            }
+
+            @Override
+            public double getY(String node) {
+                return 0;
+            }
+        };
+    }
+}
@@ -3,7 +3,11 @@
  *
  * **/
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -19,14 +23,19 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
+import javafx.scene.shape.Polyline;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
+import javafx.util.Duration;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static javafx.scene.control.Alert.AlertType.*;
 
@@ -40,9 +49,12 @@ public class PathFinder extends Application {
 
     private final File map = new File("europa.graph");
 
-    private String imageName = "file:europa.gif";
+    private static final String NEW_MAP_IMAGE = "file:europa.gif";
 
-    private final Image image = new Image(imageName);
+    private String imageName = NEW_MAP_IMAGE;
+
+    //the background of a new map, loaded the first time one is made
+    private Image image;
 
     private final ImageView imageView = new ImageView();
 
@@ -52,9 +64,71 @@ public class PathFinder extends Application {
 
     private final Set<Line> lineSet = new HashSet<>();
 
-    private final Set<Edge<Place>> edgeSet = new HashSet<>();
+    private final GraphJournal<Place> journal = new GraphJournal<>(GraphJournal.fileFor(map.toPath()), new PlaceFormat());
+
+    //unsaved edits are synced to the journal this often, a crash loses at most that much work
+    private static final int RECOVERY_SECONDS = 5;
+
+    //saves are appended to the journal, the whole map is rewritten after this many records
+    private static final int COMPACT_AFTER = 1000;
+
+    //-Dpathfinder.metrics=60 prints the operation statistics of the graph to stderr every 60 seconds
+    private static final int METRICS_SECONDS = Integer.getInteger("pathfinder.metrics", 0);
+
+    //the outermost layer of graph, closed when graph is replaced to stop its dumps
+    private InstrumentedGraph<Place> metrics;
+
+    //maps with more connections than this are drawn on the canvas, -Dpathfinder.canvas=true always uses it
+    private static final int CANVAS_AFTER = 2000;
+    private static final boolean ALWAYS_CANVAS = Boolean.getBoolean("pathfinder.canvas");
+
+    //names are left out on canvas maps with more places than this
+    private static final int LABELS_UP_TO = 5000;
+
+    //-Dpathfinder.tileMemory=256 lets a tiled map background keep 256 MB of decoded tiles
+    private static final long TILE_MEMORY = Long.getLong("pathfinder.tileMemory", 64) << 20;
+
+    //the canvas shows at most this much of the map at a time, the rest is reached by panning
+    private static final double VIEW_WIDTH = 1200;
+    private static final double VIEW_HEIGHT = 800;
+
+    private final MapCanvas canvas = new MapCanvas();
+
+    private boolean canvasMode = ALWAYS_CANVAS;
+
+    //the same graph as graph, for finding places by coordinates
+    private SpatialGraph<Place> spatial;
+
+    //a ConcurrentGraph underneath, routes are searched while the map can still be edited
+    private Graph<Place> graph = wrap(new ConcurrentGraph<>());
+
+    //routes are searched one at a time off the FX thread so the map keeps drawing
+    private final ExecutorService routeSearch = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "route-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RouteTask route;
+
+    //the running canvas export, a new one cancels it
+    private Task<Void> export;
+
+    //A* estimate for route searches, only touched on the route thread. it is scanned again once the
+    //cache has seen an edit, until then the same instance lets CachingGraph recognise a repeated route
+    private PlaceHeuristic routeHeuristic;
+    private CachingGraph<Place> heuristicCache;
+    private long heuristicVersion;
+
+    private CachingGraph<Place> cache;
+
+    private final ProgressBar routeProgress = new ProgressBar();
 
-    private Graph<Place> graph = new ListGraph<>();
+    //the last path found, drawn over the connections until the selection changes
+    private final Polyline routeLine = new Polyline();
+
+    //a new map has no saved file for the journal to build on
+    private boolean fullSave = true;
 
     private Stage mainStage;
 
@@ -63,66 +137,88 @@ public class PathFinder extends Application {
     private final MyVBox root = new MyVBox(p);
 
 
-    //sets Map to image
-    public void open(Scanner input) {
-        imageName = input.nextLine();
-        imageView.setImage(new Image(imageName));
-        String nodes = input.nextLine();
-        String[] nodeArray = nodes.split("[;]");
-        //places nodes as circles on map
-        for (int i = 0; i < nodeArray.length; i = i + 3) {
-            String stringNode = nodeArray[i];
-            double x = Double.parseDouble(nodeArray[i + 1]);
-            double y = Double.parseDouble(nodeArray[i + 2]);
-            Place node = new Place(stringNode, x, y);
-            writePlace(node);
+    //sets Map to image, GraphLoader reads places and connections and the journal adds the saved
+    //edits and those of a session that ended without saving, which count as unsaved changes
+    public void open(Reader input) throws IOException {
+        ConcurrentGraph<Place> loaded = new ConcurrentGraph<>();
+        imageName = new GraphLoader<>(new PlaceFormat()).load(input, loaded);
+        int recovered = journal.recover(map.toPath(), loaded);
+        graph = wrap(loaded);
+        fullSave = false;
+        changed = recovered > 0;
+        int connections = 0;
+        double minX = 0, minY = 0, maxX = 0, maxY = 0;
+        for (Place node : graph.getNodes()) {
+            connections += graph.getEdgesFrom(node).size();
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
         }
-        //places and draws edges
-        while (input.hasNext()) {
-            String edges = input.nextLine();
-            String[] edgeArray = edges.split("[;]");
-            String src = edgeArray[0];
-            String dest = edgeArray[1];
-            String name = edgeArray[2];
-            int weight = Integer.parseInt(edgeArray[3]);
-            graph.connect(nodeStrings.get(src), nodeStrings.get(dest), name,  weight );
+        //a tiled background is only drawn by the canvas
+        TilePyramid tiles = TilePyramid.isPyramid(imageName) ? TilePyramid.open(imageName, TILE_MEMORY) : null;
+        canvasMode = ALWAYS_CANVAS || tiles != null || connections / 2 > CANVAS_AFTER;
+        canvas.setLabels(graph.getNodes().size() <= LABELS_UP_TO);
+        double width;
+        double height;
+        if (tiles != null) {
+            showTiles(tiles);
+            width = tiles.getWidth();
+            height = tiles.getHeight();
+        } else {
+            Image map = new Image(imageName);
+            showImage(map);
+            width = map.getWidth();
+            height = map.getHeight();
         }
-        nodeStrings.values().forEach(n -> edgeSet.addAll(graph.getEdgesFrom(n)));
-        edgeSet.forEach(e -> addEdgeLines(e.getName(), e.getSrc(), e.getDestination(), e.getWeight()));
-        nodeStrings.values().forEach(Node::toFront);
+        //places may lie outside the image
+        if (canvasMode) canvas.setMapBounds(minX, minY, Math.max(maxX, width), Math.max(maxY, height));
+        //places nodes as circles on map
+        graph.getNodes().forEach(this::writePlace);
+        //draws every connection once
+        Set<Place> drawn = new HashSet<>();
+        for (Place node : graph.getNodes()) {
+            graph.forEachEdge(node, e -> {
+                if (!drawn.contains(e.getDestination()))
+                    addEdgeLines(e.getName(), e.getSrc(), e.getDestination(), e.getWeight());
+            });
+            drawn.add(node);
+        }
+        if (canvasMode) canvas.fit();
+        else nodeStrings.values().forEach(Node::toFront);
     }
 
-    //method to add new places, draws circle on map and adds to Pane
+    //draws circle for a place already in graph and adds to Pane, or to the canvas which is redrawn after loading
     private void writePlace(Place n) {
-        graph.add(n);
         n.setId(n.getName());
         nodeStrings.put(n.getName(), n);
         n.setOnMouseClicked(new PlaceClickHandler());
+        if (canvasMode) {
+            canvas.addPlace(n);
+            return;
+        }
         p.getChildren().addAll(n, n.getText());
         n.toFront();
     }
 
-    //takes in nodes from text file europa.graph, adding edges
-    private void writeNodes(PrintWriter p) {
-        p.println(imageName);
-        Set<Place> nodes = new HashSet<>(graph.getNodes());
-        Set<Edge<Place>> edges = new HashSet<>();
-        SortedSet<String> edgeStrings = new TreeSet<>(Comparator.naturalOrder());
-        for (Place n : nodes) {
-            p.print(n.getName() + ";" + n.getX() + ";" + n.getY() + ";");
-            edges.addAll(graph.getEdgesFrom(n));
-        }
-        p.println();
-        for (Edge<Place> e : edges) {
-            edgeStrings.add(e.getSrc().getName() + ";" + e.getDestination().getName()
-                    + ";" + e.getName() + ";" + e.getWeight());
-        }
-        edgeStrings.forEach(p::println);
+    //edits are journaled below the cache so a crash can be recovered from,
+    //the metrics are outermost so they time what the UI sees
+    private Graph<Place> wrap(Graph<Place> loaded) {
+        cache = new CachingGraph<>(new JournaledGraph<>(loaded, journal), 256);
+        spatial = new SpatialGraph<>(cache, new PlaceFormat());
+        if (metrics != null) metrics.close();
+        metrics = new InstrumentedGraph<>(spatial);
+        if (METRICS_SECONDS > 0)
+            metrics.dumpEvery(METRICS_SECONDS, TimeUnit.SECONDS, InstrumentedGraph.Format.TEXT, System.err::print);
+        return metrics;
     }
 
-    //adds edge to edge map
+    //draws line for an edge already connected in graph
     public void addEdgeLines(String name,Place src, Place dest, int weight) {
-        graph.connect(src, dest, name, weight);
+        if (canvasMode) {
+            canvas.addEdge(src, dest);
+            return;
+        }
         Line line = new Line();
         line.setStartX(src.getX());
         line.setStartY(src.getY());
@@ -138,15 +234,60 @@ public class PathFinder extends Application {
 
     //removes all nodes and edges and whatever has been selected
     public void reset() {
-        graph = new ListGraph<>();
+        graph = wrap(new ConcurrentGraph<>());
+        journal.discard();
         p.getChildren().removeAll(lineSet);
         p.getChildren().removeAll(nodeStrings.values());
         lineSet.clear();
         nodeStrings.clear();
         selectList.clear();
+        selectionChanged();
+        canvasMode = ALWAYS_CANVAS;
+        canvas.clear();
         changed = false;
     }
 
+    //on the canvas the image is drawn by the canvas, in a view no bigger than VIEW_WIDTH x VIEW_HEIGHT
+    private void showImage(Image map) {
+        imageView.setImage(map);
+        imageView.setVisible(!canvasMode);
+        imageView.setManaged(!canvasMode);
+        canvas.setVisible(canvasMode);
+        canvas.setManaged(canvasMode);
+        if (!canvasMode) return;
+        canvas.setImage(map);
+        showCanvas(map.getWidth(), map.getHeight());
+    }
+
+    private Image newMapImage() {
+        if (image == null) image = new Image(NEW_MAP_IMAGE);
+        return image;
+    }
+
+    private void showTiles(TilePyramid tiles) {
+        imageView.setImage(null);
+        imageView.setVisible(false);
+        imageView.setManaged(false);
+        canvas.setVisible(true);
+        canvas.setManaged(true);
+        canvas.setTiles(tiles);
+        showCanvas(tiles.getWidth(), tiles.getHeight());
+    }
+
+    private void showCanvas(double width, double height) {
+        canvas.setViewSize(Math.min(width, VIEW_WIDTH), Math.min(height, VIEW_HEIGHT));
+        canvas.setMapBounds(0, 0, width, height);
+        canvas.fit();
+    }
+
+    //a route being searched or shown belongs to the old selection
+    private void selectionChanged() {
+        if (route != null) route.cancel();
+        route = null;
+        routeLine.getPoints().clear();
+        canvas.setRoute(List.of());
+    }
+
     //Prodduces window for messages
     public void alert(String s, ActionEvent event) {
         Alert alert = new Alert(ERROR);
@@ -162,7 +303,11 @@ public class PathFinder extends Application {
         this.mainStage = mainStage;
 
         imageView.setId("imageView");
-        p.getChildren().add(imageView);
+        routeLine.setStroke(Color.RED);
+        routeLine.setStrokeWidth(3);
+        routeLine.setMouseTransparent(true);
+        p.getChildren().addAll(imageView, canvas, routeLine);
+        p.addEventFilter(javafx.scene.input.MouseEvent.MOUSE_CLICKED, new CanvasClickHandler());
 
         mainStage.setTitle("PathFinder");
         mainStage.setWidth(628);
@@ -189,6 +334,10 @@ public class PathFinder extends Application {
         options.add(newPlace, 3, 1);
         options.add(newCon, 4, 1);
         options.add(changeCon, 5, 1);
+        routeProgress.setMaxWidth(Double.MAX_VALUE);
+        routeProgress.setVisible(false);
+        routeProgress.setManaged(false);
+        options.add(routeProgress, 1, 2, 5, 1);
         options.setPadding(new Insets(10));
         options.setHgap(20);
         options.setVgap(1);
@@ -229,6 +378,29 @@ public class PathFinder extends Application {
         mainStage.setScene(sc);
         mainStage.setOnCloseRequest(new ExitHandler());
         mainStage.show();
+
+        Timeline recovery = new Timeline(new KeyFrame(Duration.seconds(RECOVERY_SECONDS), e -> syncJournal()));
+        recovery.setCycleCount(Animation.INDEFINITE);
+        recovery.play();
+    }
+
+    //a new map has no saved file for the journal to build on, it is only protected once saved
+    private void syncJournal() {
+        if (fullSave || !journal.hasPending()) return;
+        try {
+            journal.sync(map.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not sync " + journal.getFile() + ": " + e.getMessage());
+        }
+    }
+
+    //unsaved changes are thrown away, the journal must not bring them back on the next open
+    private void discardJournal() {
+        try {
+            journal.dropUnsaved();
+        } catch (IOException e) {
+            System.err.println("Could not cut " + journal.getFile() + " back to the last save: " + e.getMessage());
+        }
     }
 
     class MyVBox extends VBox {
@@ -238,16 +410,31 @@ public class PathFinder extends Application {
         }
     }
 
-    //saves snapshot of map
+    //saves snapshot of map, canvas maps are written at full size a tile at a time in the background
     class SaveImageHandler implements EventHandler<ActionEvent> {
         @Override public void handle(ActionEvent event) {
             try {
+                if (canvasMode) {
+                    if (export != null) export.cancel();
+                    Task<Void> task = canvas.export(new File("capture.png"));
+                    task.setOnFailed(e -> alert("Something went wrong...", event));
+                    routeProgress.progressProperty().bind(task.progressProperty());
+                    routeProgress.visibleProperty().bind(task.runningProperty());
+                    routeProgress.managedProperty().bind(task.runningProperty());
+                    export = task;
+                    Thread thread = new Thread(task, "map-export");
+                    thread.setDaemon(true);
+                    thread.start();
+                    return;
+                }
                 WritableImage image = p.snapshot(null, null);
                 BufferedImage bufferedImage = SwingFXUtils.fromFXImage(image, null);
                 ImageIO.write(bufferedImage, "png", new File("capture.png"));
             } catch (IOException e) {
                 String s = "Something went wrong...";
                 alert(s, event);
+            } catch (IllegalArgumentException e) {
+                alert(e.getMessage(), event);
             }
         }
     }
@@ -256,22 +443,22 @@ public class PathFinder extends Application {
     class OpenHandler implements EventHandler<ActionEvent> {
         @Override
         public void handle(ActionEvent event) {
-            try {
-                Scanner input = new Scanner(map);
+            try (Reader input = Files.newBufferedReader(map.toPath(), StandardCharsets.UTF_8)) {
                 if (!changed) {
                     reset();
                     open(input);
-                }
-                if (changed) {
+                } else {
                     Alert alert = new Alert(CONFIRMATION);
                     alert.setTitle("Warning!");
                     alert.setHeaderText("Unsaved changes, continue anyways?");
                     Optional<ButtonType> result = alert.showAndWait();
                     if (result.isPresent() && result.get() == ButtonType.CANCEL)
                         event.consume();
-                    if (result.isPresent() && result.get() == ButtonType.OK)
+                    if (result.isPresent() && result.get() == ButtonType.OK) {
+                        discardJournal();
                         reset();
                         open(input);
+                    }
                 }
             } catch (Exception e) {
                 String s = "Something went wrong...";
@@ -285,7 +472,8 @@ public class PathFinder extends Application {
         @Override public void handle(ActionEvent event) {
             if (!changed) {
                 reset();
-                imageView.setImage(image);
+                fullSave = true;
+                showImage(newMapImage());
                 imageView.preserveRatioProperty();
                 bp.setCenter(p);
                 mainStage.sizeToScene();
@@ -297,8 +485,10 @@ public class PathFinder extends Application {
                 Optional<ButtonType> result = alert.showAndWait();
                 if (result.isPresent() && result.get() == ButtonType.CANCEL) event.consume();
                 if (result.isPresent() && result.get() == ButtonType.OK) {
+                    discardJournal();
                     reset();
-                    imageView.setImage(image);
+                    fullSave = true;
+                    showImage(newMapImage());
                     imageView.preserveRatioProperty();
                     bp.setCenter(p);
                     mainStage.sizeToScene();
@@ -308,11 +498,13 @@ public class PathFinder extends Application {
         }
     }
 
-    //writes nodes and edges to text file
+    //appends the edits since the last save to the journal, rewrites the whole map when it has grown
     class SaveMapHandler implements EventHandler<ActionEvent> {
         @Override public void handle(ActionEvent event) {
-            try (PrintWriter p = new PrintWriter(map)) {
-                writeNodes(p);
+            try {
+                if (fullSave || journal.size() >= COMPACT_AFTER) journal.compact(imageName, graph, map.toPath());
+                else journal.save(map.toPath());
+                fullSave = false;
             } catch (IOException e) {
                 String s = "Something went wrong...";
                 alert(s, event);
@@ -402,8 +594,7 @@ public class PathFinder extends Application {
                             line.setId(tf1.getText());
                             line.setUserData(Integer.parseInt(tf2.getText()));
                             lineSet.add(line);
-                            graph.getEdgeBetween(node1, node2).setWeight(Integer.parseInt(tf2.getText()));
-                            graph.getEdgeBetween(node2, node1).setWeight(Integer.parseInt(tf2.getText()));
+                            graph.setConnectionWeight(node1, node2, Integer.parseInt(tf2.getText()));
                             changed = true;
                         } catch (NumberFormatException e) {
                             String s = "Time input must be a number!";
@@ -453,7 +644,6 @@ public class PathFinder extends Application {
                     if (!tf1.getText().isBlank() && !tf2.getText().isBlank() && td.getResult() != null) {
                         try {
                             graph.connect(node1, node2, tf1.getText(), Integer.parseInt(tf2.getText()));
-                            graph.connect(node2, node1, tf1.getText(), Integer.parseInt(tf2.getText()));
                             addEdgeLines(tf1.getText(), node1, node2, Integer.parseInt(tf2.getText()));
                             changed = true;
                         } catch (NumberFormatException e) {
@@ -474,7 +664,8 @@ public class PathFinder extends Application {
             if (bp.getCenter() == p) {
                 mainStage.getScene().setCursor(Cursor.CROSSHAIR);
                 options.getChildren().get(2).setDisable(true);
-                imageView.setOnMouseClicked(new MapClickHandler());
+                if (canvasMode) canvas.setOnMouseClicked(new MapClickHandler());
+                else imageView.setOnMouseClicked(new MapClickHandler());
             } else
                 event.consume();
         }
@@ -489,6 +680,7 @@ public class PathFinder extends Application {
                 circle.setFill(Color.RED);
                 selectList.add(circle);
                 circle.setOnMouseClicked(new SelectedPlaceClickHandler());
+                selectionChanged();
             }
         }
     }
@@ -502,15 +694,45 @@ public class PathFinder extends Application {
             selectList.trimToSize();
             circle.setFill(Color.BLUE);
             circle.setOnMouseClicked(new PlaceClickHandler());
+            selectionChanged();
+        }
+    }
+
+    //selects and unselects places drawn on the canvas, runs before the canvas sees the click
+    //so clicking a place while adding a new one selects it like a Place circle would.
+    //the click that ends a drag only pans, clusters can't be picked from
+    class CanvasClickHandler implements EventHandler<javafx.scene.input.MouseEvent> {
+        @Override
+        public void handle(javafx.scene.input.MouseEvent event) {
+            if (!canvasMode) return;
+            if (!event.isStillSincePress()) {
+                event.consume();
+                return;
+            }
+            if (canvas.isClustered()) return;
+            double x = canvas.toMapX(event.getX());
+            double y = canvas.toMapY(event.getY());
+            Place place = spatial.nearest(x, y);
+            if (place == null || Math.hypot(place.getX() - x, place.getY() - y) > canvas.getHitRadius()) return;
+            if (selectList.remove(place)) {
+                place.setFill(Color.BLUE);
+            } else if (selectList.size() < 2) {
+                place.setFill(Color.RED);
+                selectList.add(place);
+            }
+            selectionChanged();
+            canvas.redraw();
+            event.consume();
         }
     }
 
     //actual method for creation of new place
     class MapClickHandler implements EventHandler<javafx.scene.input.MouseEvent>{
         @Override public void handle(javafx.scene.input.MouseEvent event){
-            double x = event.getX();
-            double y = event.getY();
+            double x = canvasMode ? canvas.toMapX(event.getX()) : event.getX();
+            double y = canvasMode ? canvas.toMapY(event.getY()) : event.getY();
             imageView.setOnMouseClicked(null);
+            canvas.setOnMouseClicked(null);
             TextInputDialog td = new TextInputDialog();
             td.setTitle("Name");
             td.setHeaderText("");
@@ -532,8 +754,12 @@ public class PathFinder extends Application {
                     if (n.getName().equals(node.getName())) node.setOnMouseClicked(new SelectedPlaceClickHandler());
                 });
                 nodeStrings.put(node.getName(), node);
-                p.getChildren().addAll(node, node.getText());
-                node.toFront();
+                if (canvasMode) {
+                    canvas.addPlace(node);
+                } else {
+                    p.getChildren().addAll(node, node.getText());
+                    node.toFront();
+                }
                 mainStage.getScene().setCursor(Cursor.DEFAULT);
                 options.getChildren().get(2).setDisable(false);
                 changed = true;
@@ -545,7 +771,8 @@ public class PathFinder extends Application {
         }
     }
 
-    //uses algorithm in getPath to produce a direct path between two nodes and presents them to user
+    //searches the cheapest path between the two selected nodes on the route thread,
+    //then highlights it and presents it to user. a new selection cancels the search
     class FindPathHandler implements EventHandler<ActionEvent> {
         @Override
         public void handle(ActionEvent event) {
@@ -556,29 +783,86 @@ public class PathFinder extends Application {
             if (selectList.size() == 2) {
                 Place node1 = nodeStrings.get(selectList.get(1).getId());
                 Place node2 = nodeStrings.get(selectList.get(0).getId());
-                if (graph.pathExists(node1, node2)) {
-                    List<Edge<Place>> edges = graph.getPath(node1, node2);
-                    Alert alert = new Alert(INFORMATION);
-                    alert.setResizable(true);
-                    alert.setHeaderText("The path from " + selectList.get(0).getId() + " to " + selectList.get(1).getId() + ":");
-                    TextArea ta = new TextArea();
-                    ta.setWrapText(true);
-                    ta.appendText(edges.get(0).toString());
-                    int total = edges.get(0).getWeight();
-                    for (int i = 1; i < edges.size(); i++) {
-                        ta.appendText("\n" + edges.get(i).toString());
-                        total = total + edges.get(i).getWeight();
-                    }
-                    ta.appendText("\n" + "Total " + total);
-                    alert.getDialogPane().setContent(ta);
-                    alert.showAndWait();
-                }
-                if (!graph.pathExists(node1, node2)) {
-                    Alert alert = new Alert(INFORMATION);
-                    alert.setHeaderText("Path does not exist.");
+                String header = "The path from " + selectList.get(0).getId() + " to " + selectList.get(1).getId() + ":";
+                selectionChanged();
+                RouteTask task = new RouteTask(graph, cache, node1, node2);
+                task.setOnSucceeded(e -> showRoute(task.getValue(), header));
+                task.setOnFailed(e -> {
+                    Alert alert = new Alert(ERROR);
+                    alert.setHeaderText("Something went wrong...");
                     alert.showAndWait();
+                });
+                routeProgress.progressProperty().bind(task.progressProperty());
+                routeProgress.visibleProperty().bind(task.runningProperty());
+                routeProgress.managedProperty().bind(task.runningProperty());
+                route = task;
+                routeSearch.execute(task);
+            }
+        }
+
+        private void showRoute(PathResult<Place> result, String header) {
+            if (result.exists()) {
+                List<Edge<Place>> edges = result.getPath();
+                if (canvasMode) {
+                    canvas.setRoute(edges);
+                } else if (!edges.isEmpty()) {
+                    routeLine.getPoints().addAll(edges.get(0).getSrc().getX(), edges.get(0).getSrc().getY());
+                    for (Edge<Place> e : edges) routeLine.getPoints().addAll(e.getDestination().getX(), e.getDestination().getY());
+                    routeLine.toFront();
                 }
+                Alert alert = new Alert(INFORMATION);
+                alert.setResizable(true);
+                alert.setHeaderText(header);
+                TextArea ta = new TextArea();
+                ta.setWrapText(true);
+                //the path is empty when from and to are the same place, then only the total is shown
+                for (Edge<Place> e : edges) ta.appendText(e.toString() + "\n");
+                ta.appendText("Total " + result.getTotalWeight());
+                alert.getDialogPane().setContent(ta);
+                alert.showAndWait();
+            }
+            if (!result.exists()) {
+                Alert alert = new Alert(INFORMATION);
+                alert.setHeaderText("Path does not exist.");
+                alert.showAndWait();
+            }
+        }
+    }
+
+    //the A* search run by FindPathHandler, progress is the places settled out of all places.
+    //cancelling stops the search before the next place is settled
+    class RouteTask extends Task<PathResult<Place>> {
+        private final Graph<Place> graph;
+        private final CachingGraph<Place> cache;
+        private final Place from;
+        private final Place to;
+        private final int total;
+
+        RouteTask(Graph<Place> graph, CachingGraph<Place> cache, Place from, Place to) {
+            this.graph = graph;
+            this.cache = cache;
+            this.from = from;
+            this.to = to;
+            this.total = graph.getNodes().size();
+        }
+
+        @Override
+        protected PathResult<Place> call() {
+            updateProgress(0, total);
+            return graph.findShortestPath(from, to, heuristic(), settled -> {
+                if (settled % 1024 == 0) updateProgress(Math.min(settled, total), total);
+            }, this::isCancelled);
+        }
+
+        //the version is read before scanning, an edit made meanwhile makes the next search scan again
+        private PlaceHeuristic heuristic() {
+            long version = cache.getVersion();
+            if (routeHeuristic == null || heuristicCache != cache || heuristicVersion != version) {
+                routeHeuristic = PlaceHeuristic.forGraph(graph);
+                heuristicCache = cache;
+                heuristicVersion = version;
             }
+            return routeHeuristic;
         }
     }
 
@@ -600,6 +884,8 @@ public class PathFinder extends Application {
                 Optional<ButtonType> result = alert.showAndWait();
                 if (result.isPresent() && result.get() == ButtonType.CANCEL)
                     event.consume();
+                if (result.isPresent() && result.get() == ButtonType.OK)
+                    discardJournal();
             }
             else mainStage.close();
         }
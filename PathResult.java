@@ -0,0 +1,105 @@
+import java.util.*;
+
+//outcome of one path search, lets the caller check existence and read the path without searching again
+public class PathResult<T> {
+
+    private final List<Edge<T>> path;
+    private final long totalWeight;
+
+    //work done by the search that produced this result, 0 if the engine doesn't count it
+    private final int nodesVisited;
+    private final int edgesRelaxed;
+
+    //the search was stopped before it could decide, no path is known either way
+    private final boolean cancelled;
+
+    private PathResult(List<Edge<T>> path) {
+        this(path, 0, 0);
+    }
+
+    private PathResult(List<Edge<T>> path, int nodesVisited, int edgesRelaxed) {
+        this(path, nodesVisited, edgesRelaxed, false);
+    }
+
+    private PathResult(List<Edge<T>> path, int nodesVisited, int edgesRelaxed, boolean cancelled) {
+        this.path = path;
+        this.cancelled = cancelled;
+        this.nodesVisited = nodesVisited;
+        this.edgesRelaxed = edgesRelaxed;
+        long total = 0;
+        if (path != null) for (Edge<T> e : path) total += e.getWeight();
+        this.totalWeight = total;
+    }
+
+    public static <T> PathResult<T> none() {
+        return new PathResult<>(null);
+    }
+
+    static <T> PathResult<T> of(List<Edge<T>> path) {
+        return new PathResult<>(Collections.unmodifiableList(path));
+    }
+
+    static <T> PathResult<T> of(List<Edge<T>> path, int nodesVisited, int edgesRelaxed) {
+        return new PathResult<>(Collections.unmodifiableList(path), nodesVisited, edgesRelaxed);
+    }
+
+    //a failed search that still reports how much it did
+    static <T> PathResult<T> none(int nodesVisited, int edgesRelaxed) {
+        return new PathResult<>(null, nodesVisited, edgesRelaxed);
+    }
+
+    static <T> PathResult<T> cancelled(int nodesVisited, int edgesRelaxed) {
+        return new PathResult<>(null, nodesVisited, edgesRelaxed, true);
+    }
+
+    //walks the via edges back from the target, each edge leads into its key node
+    static <T> PathResult<T> gather(T from, T to, Map<T, Edge<T>> via) {
+        return gather(from, to, via, 0, 0);
+    }
+
+    static <T> PathResult<T> gather(T from, T to, Map<T, Edge<T>> via, int nodesVisited, int edgesRelaxed) {
+        List<Edge<T>> path = new ArrayList<>();
+        T where = to;
+        while (!where.equals(from)) {
+            Edge<T> e = via.get(where);
+            path.add(e);
+            where = e.getSrc();
+        }
+        Collections.reverse(path);
+        return new PathResult<>(Collections.unmodifiableList(path), nodesVisited, edgesRelaxed);
+    }
+
+    public boolean exists() {
+        return path != null;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    //edges from -> to in order, null if no path exists
+    public List<Edge<T>> getPath() {
+        return path;
+    }
+
+    //summed in a long, a path of many heavy edges can weigh more than an int holds
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    //nodes taken off the search queue
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    //edges looked at from the visited nodes
+    public int getEdgesRelaxed() {
+        return edgesRelaxed;
+    }
+
+    @Override
+    public String toString() {
+        if (cancelled) return "Cancelled";
+        return exists() ? "Path " + path + " total " + totalWeight : "No path";
+    }
+}
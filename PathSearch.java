@@ -0,0 +1,33 @@
+import java.util.*;
+
+//iterative breadth first search over any Graph, one search answers both "exists" and "path"
+public class PathSearch {
+
+    private PathSearch()
+    {}
+
+    //path with the fewest edges from -> to, stops as soon as the target is reached
+    public static <T> PathResult<T> find(Graph<T> graph, T from, T to) {
+        if (!graph.getNodes().contains(from) || !graph.getNodes().contains(to)) return PathResult.none();
+        //via doubles as the visited set, the start node is marked with a null edge
+        Map<T, Edge<T>> via = new HashMap<>();
+        Deque<T> queue = new ArrayDeque<>();
+        via.put(from, null);
+        queue.add(from);
+        //nodes visited and edges relaxed, reported in the result
+        int[] work = new int[2];
+        while (!queue.isEmpty()) {
+            T where = queue.poll();
+            work[0]++;
+            if (where.equals(to)) return PathResult.gather(from, to, via, work[0], work[1]);
+            graph.forEachEdge(where, e -> {
+                work[1]++;
+                if (!via.containsKey(e.getDestination())) {
+                    via.put(e.getDestination(), e);
+                    queue.add(e.getDestination());
+                }
+            });
+        }
+        return PathResult.none(work[0], work[1]);
+    }
+}
@@ -0,0 +1,23 @@
+//NodeFormat for the Place circles shown in PathFinder
+public class PlaceFormat implements NodeFormat<Place> {
+
+    @Override
+    public Place create(String name, double x, double y) {
+        return new Place(name, x, y);
+    }
+
+    @Override
+    public String getName(Place node) {
+        return node.getName();
+    }
+
+    @Override
+    public double getX(Place node) {
+        return node.getX();
+    }
+
+    @Override
+    public double getY(Place node) {
+        return node.getY();
+    }
+}
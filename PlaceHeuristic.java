@@ -0,0 +1,36 @@
+//straight line distance between Place coordinates scaled by the cheapest cost per pixel on the map
+public class PlaceHeuristic implements Heuristic<Place> {
+
+    private final double minCostPerPixel;
+
+    public PlaceHeuristic(double minCostPerPixel) {
+        if (minCostPerPixel < 0) throw new IllegalArgumentException("Cost per pixel must not be negative");
+        this.minCostPerPixel = minCostPerPixel;
+    }
+
+    //scans every edge once for the lowest weight per pixel, the tightest scale that stays admissible
+    public static PlaceHeuristic forGraph(Graph<Place> graph) {
+        double[] min = {Double.POSITIVE_INFINITY};
+        for (Place node : graph.getNodes()) {
+            graph.forEachEdge(node, e -> {
+                double length = distance(e.getSrc(), e.getDestination());
+                if (length > 0) min[0] = Math.min(min[0], e.getWeight() / length);
+            });
+        }
+        return new PlaceHeuristic(Double.isInfinite(min[0]) ? 0 : min[0]);
+    }
+
+    public double getMinCostPerPixel() {
+        return minCostPerPixel;
+    }
+
+    //rounded down so the int estimate never exceeds the real remaining cost
+    @Override
+    public int estimate(Place node, Place target) {
+        return (int) Math.floor(distance(node, target) * minCostPerPixel);
+    }
+
+    private static double distance(Place a, Place b) {
+        return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+    }
+}
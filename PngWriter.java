@@ -0,0 +1,123 @@
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+//Writes an 8 bit RGBA PNG a few rows at a time, so an image far bigger than the heap can be saved
+//as long as its rows are rendered in order. ImageIO needs the whole image up front.
+//rows are stored unfiltered in one zlib stream cut into IDAT chunks of CHUNK bytes
+public class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int CHUNK = 1 << 16;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final DeflaterOutputStream pixels;
+    private final byte[] row;
+    private int rowsWritten;
+
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Image must be at least 1 x 1");
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + 4 * width];
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;
+        header[9] = 6;
+        chunk("IHDR", header, header.length);
+        pixels = new DeflaterOutputStream(new IdatStream(), deflater, CHUNK);
+    }
+
+    //rows of ARGB pixels, width apart in argb, the way PixelReader.getPixels fills them
+    public void writeRows(int[] argb, int rows) throws IOException {
+        if (rowsWritten + rows > height) throw new IllegalStateException("More rows than the image is high");
+        for (int y = 0; y < rows; y++) {
+            row[0] = 0;
+            for (int x = 0, i = y * width, b = 1; x < width; x++, i++) {
+                int p = argb[i];
+                row[b++] = (byte) (p >> 16);
+                row[b++] = (byte) (p >> 8);
+                row[b++] = (byte) p;
+                row[b++] = (byte) (p >>> 24);
+            }
+            pixels.write(row);
+        }
+        rowsWritten += rows;
+    }
+
+    //finishes the image, missing rows are an error. the stream is closed either way
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height) throw new IllegalStateException(rowsWritten + " of " + height + " rows written");
+            pixels.close();
+            chunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void chunk(String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(name);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] into, int at, int value) {
+        into[at] = (byte) (value >>> 24);
+        into[at + 1] = (byte) (value >>> 16);
+        into[at + 2] = (byte) (value >>> 8);
+        into[at + 3] = (byte) value;
+    }
+
+    //collects compressed bytes and writes them as an IDAT chunk whenever CHUNK have come in
+    private class IdatStream extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer[size++] = (byte) b;
+            if (size == CHUNK) flushChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, CHUNK - size);
+                System.arraycopy(b, off, buffer, size, n);
+                size += n;
+                off += n;
+                len -= n;
+                if (size == CHUNK) flushChunk();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (size > 0) flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            chunk("IDAT", buffer, size);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ Decodes PngWriter output with ImageIO and compares every pixel, alpha included:
+ a small image written in uneven batches of rows, and noise that doesn't compress
+ so the pixels span several IDAT chunks. Closing with rows missing is an error
+ but must still close the stream underneath.
+ */
+public class PngWriterTest {
+
+	public static void main(String[] args) throws Exception {
+		var app = new PngWriterTest();
+		app.test1_small_image();
+		app.test2_many_chunks();
+		app.test3_missing_rows();
+		System.out.printf("%n ==> PngWriter output decodes to the pixels written. <== %n");
+	}
+
+	private void test1_small_image() throws Exception {
+		int width = 37;
+		int height = 23;
+		int[] argb = new int[width * height];
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				argb[y * width + x] = (x * 7) << 24 | (y * 11) << 16 | (x ^ y) << 8 | (x + y);
+		check(argb, width, height, new int[]{1, 10, 12});
+	}
+
+	private void test2_many_chunks() throws Exception {
+		int width = 300;
+		int height = 300;
+		int[] argb = new int[width * height];
+		Random random = new Random(7);
+		for (int i = 0; i < argb.length; i++) argb[i] = random.nextInt();
+		byte[] png = check(argb, width, height, new int[]{height});
+		int chunks = 0;
+		for (int i = 0; i + 4 <= png.length; i++)
+			if (png[i] == 'I' && png[i + 1] == 'D' && png[i + 2] == 'A' && png[i + 3] == 'T') chunks++;
+		if (chunks < 2)
+			throw new Exception("Error: " + png.length + " bytes of noise should take several IDAT chunks, found " + chunks);
+	}
+
+	private void test3_missing_rows() throws Exception {
+		boolean[] closed = {false};
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		PngWriter png = new PngWriter(out, 4, 4);
+		png.writeRows(new int[8], 2);
+		try {
+			png.writeRows(new int[12], 3);
+			throw new Exception("Error: writing 5 rows into an image 4 high should fail.");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+		try {
+			png.close();
+			throw new Exception("Error: closing after 2 of 4 rows should fail.");
+		} catch (IllegalStateException e) {
+			if (!closed[0])
+				throw new Exception("Error: the stream should be closed even though rows are missing.");
+		}
+	}
+
+	//writes argb in batches of the given row counts, decodes it and returns the file
+	private byte[] check(int[] argb, int width, int height, int[] batches) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (PngWriter png = new PngWriter(out, width, height)) {
+			int row = 0;
+			for (int rows : batches) {
+				int[] batch = new int[rows * width];
+				System.arraycopy(argb, row * width, batch, 0, batch.length);
+				png.writeRows(batch, rows);
+				row += rows;
+			}
+		}
+		byte[] bytes = out.toByteArray();
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+		if (image == null || image.getWidth() != width || image.getHeight() != height)
+			throw new Exception("Error: ImageIO should read a " + width + " x " + height + " PNG.");
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				if (image.getRGB(x, y) != argb[y * width + x])
+					throw new Exception("Error: pixel " + x + "," + y + " should be " + Integer.toHexString(argb[y * width + x])
+							+ ", was " + Integer.toHexString(image.getRGB(x, y)));
+		return bytes;
+	}
+}
@@ -0,0 +1,219 @@
+import java.util.*;
+
+//Point quadtree over the x/y of nodes, read through a NodeFormat.
+//leaves hold up to 8 nodes and split when they get more, a quad whose subtree shrinks to 8
+//is merged back into a leaf. the root starts around the first node and doubles towards
+//nodes outside it, so there are no fixed map bounds.
+//nearest and range queries take O(log n) plus the number of nodes returned on spread out maps.
+//not thread safe, see SpatialGraph
+public class QuadTree<T> {
+
+    private static final int CAPACITY = 8;
+    //nodes on the same spot would split forever, leaves this small keep everything
+    private static final double MIN_SIZE = 1.0 / 1024;
+    private static final double START_SIZE = 1024;
+
+    private final NodeFormat<T> format;
+
+    private Quad<T> root;
+
+    public QuadTree(NodeFormat<T> format) {
+        this.format = format;
+    }
+
+    public int size() {
+        return root == null ? 0 : root.count;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    public void insert(T node) {
+        double x = format.getX(node);
+        double y = format.getY(node);
+        if (!Double.isFinite(x) || !Double.isFinite(y)) throw new IllegalArgumentException("Coordinates must be finite");
+        if (root == null) root = new Quad<>(x - START_SIZE / 2, y - START_SIZE / 2, START_SIZE);
+        while (!root.contains(x, y)) grow(x, y);
+        Quad<T> quad = root;
+        while (true) {
+            quad.count++;
+            if (quad.children == null) break;
+            quad = quad.child(x, y);
+        }
+        quad.items.add(node);
+        if (quad.items.size() > CAPACITY && quad.size > MIN_SIZE) split(quad);
+    }
+
+    //the old root becomes the quadrant of a twice as big root that lies away from x, y
+    private void grow(double x, double y) {
+        Quad<T> old = root;
+        double size = old.size * 2;
+        double minX = x < old.minX ? old.minX - old.size : old.minX;
+        double minY = y < old.minY ? old.minY - old.size : old.minY;
+        root = new Quad<>(minX, minY, size);
+        root.children = root.quadrants();
+        int at = (old.minX > minX ? 1 : 0) + (old.minY > minY ? 2 : 0);
+        root.children.set(at, old);
+        root.count = old.count;
+        root.items = null;
+    }
+
+    private void split(Quad<T> quad) {
+        quad.children = quad.quadrants();
+        List<T> items = quad.items;
+        quad.items = null;
+        for (T node : items) {
+            Quad<T> child = quad.child(format.getX(node), format.getY(node));
+            child.items.add(node);
+            child.count++;
+        }
+        for (Quad<T> child : quad.children)
+            if (child.items.size() > CAPACITY && child.size > MIN_SIZE) split(child);
+    }
+
+    //finds node by its coordinates and equals, false if it isn't in the tree
+    public boolean remove(T node) {
+        double x = format.getX(node);
+        double y = format.getY(node);
+        return root != null && root.contains(x, y) && remove(root, node, x, y);
+    }
+
+    private boolean remove(Quad<T> quad, T node, double x, double y) {
+        if (quad.children == null) {
+            if (!quad.items.remove(node)) return false;
+            quad.count--;
+            return true;
+        }
+        if (!remove(quad.child(x, y), node, x, y)) return false;
+        quad.count--;
+        if (quad.count <= CAPACITY) {
+            List<T> items = new ArrayList<>(CAPACITY + 1);
+            collect(quad, items);
+            quad.children = null;
+            quad.items = items;
+        }
+        return true;
+    }
+
+    private static <T> void collect(Quad<T> quad, List<T> into) {
+        if (quad.children == null) into.addAll(quad.items);
+        else for (Quad<T> child : quad.children) collect(child, into);
+    }
+
+    //closest node to x, y or null if the tree is empty
+    public T nearest(double x, double y) {
+        List<T> found = nearest(x, y, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    //up to k nodes ordered by distance to x, y.
+    //quads and nodes share one queue ordered by distance, so quads are only opened
+    //while they could hold something closer than the nodes already found
+    public List<T> nearest(double x, double y, int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative");
+        List<T> found = new ArrayList<>(Math.min(k, size()));
+        if (root == null || k == 0) return found;
+        PriorityQueue<Candidate<T>> queue = new PriorityQueue<>();
+        queue.add(new Candidate<>(root.distance(x, y), root, null));
+        while (!queue.isEmpty() && found.size() < k) {
+            Candidate<T> next = queue.poll();
+            if (next.quad == null) {
+                found.add(next.node);
+            } else if (next.quad.children == null) {
+                for (T node : next.quad.items) {
+                    double dx = format.getX(node) - x;
+                    double dy = format.getY(node) - y;
+                    queue.add(new Candidate<>(dx * dx + dy * dy, null, node));
+                }
+            } else {
+                for (Quad<T> child : next.quad.children)
+                    if (child.count > 0) queue.add(new Candidate<>(child.distance(x, y), child, null));
+            }
+        }
+        return found;
+    }
+
+    //nodes with minX <= x <= maxX and minY <= y <= maxY, in no particular order
+    public List<T> range(double minX, double minY, double maxX, double maxY) {
+        List<T> found = new ArrayList<>();
+        if (root != null) range(root, minX, minY, maxX, maxY, found);
+        return found;
+    }
+
+    private void range(Quad<T> quad, double minX, double minY, double maxX, double maxY, List<T> found) {
+        if (quad.count == 0 || quad.minX > maxX || quad.minY > maxY
+                || quad.minX + quad.size < minX || quad.minY + quad.size < minY) return;
+        if (quad.children != null) {
+            for (Quad<T> child : quad.children) range(child, minX, minY, maxX, maxY, found);
+            return;
+        }
+        for (T node : quad.items) {
+            double x = format.getX(node);
+            double y = format.getY(node);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) found.add(node);
+        }
+    }
+
+    //square [minX, minX + size) x [minY, minY + size), count is the number of nodes below it
+    private static class Quad<T> {
+        private final double minX;
+        private final double minY;
+        private final double size;
+        private int count;
+        private List<T> items = new ArrayList<>(CAPACITY + 1);
+        //four quadrants, left to right then top to bottom, or null in a leaf
+        private List<Quad<T>> children;
+
+        Quad(double minX, double minY, double size) {
+            this.minX = minX;
+            this.minY = minY;
+            this.size = size;
+        }
+
+        boolean contains(double x, double y) {
+            return x >= minX && x < minX + size && y >= minY && y < minY + size;
+        }
+
+        //empty quadrants of this square, a List since generic arrays can't be created
+        List<Quad<T>> quadrants() {
+            double half = size / 2;
+            List<Quad<T>> quadrants = new ArrayList<>(4);
+            for (int i = 0; i < 4; i++) quadrants.add(new Quad<>(minX + (i & 1) * half, minY + (i >> 1) * half, half));
+            return quadrants;
+        }
+
+        //points on the middle lines go to the right and lower quadrants
+        Quad<T> child(double x, double y) {
+            double half = size / 2;
+            return children.get((x >= minX + half ? 1 : 0) + (y >= minY + half ? 2 : 0));
+        }
+
+        //squared distance from x, y to the nearest point of the square, 0 inside it
+        double distance(double x, double y) {
+            double dx = Math.max(0, Math.max(minX - x, x - (minX + size)));
+            double dy = Math.max(0, Math.max(minY - y, y - (minY + size)));
+            return dx * dx + dy * dy;
+        }
+    }
+
+    private static class Candidate<T> implements Comparable<Candidate<T>> {
+        private final double distance;
+        private final Quad<T> quad;
+        private final T node;
+
+        Candidate(double distance, Quad<T> quad, T node) {
+            this.distance = distance;
+            this.quad = quad;
+            this.node = node;
+        }
+
+        //nodes before quads at the same distance, so a node on a quad's edge is returned first
+        @Override
+        public int compareTo(Candidate<T> other) {
+            int c = Double.compare(distance, other.distance);
+            if (c != 0) return c;
+            return Boolean.compare(quad != null, other.quad != null);
+        }
+    }
+}
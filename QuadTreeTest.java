@@ -0,0 +1,122 @@
+import java.util.*;
+
+/**
+ Compares QuadTree against brute force on 20 000 random points, some of them
+ on the same spot: nearest, k nearest and range queries, then again after half
+ of the points have been removed so quads merge back into leaves.
+ */
+public class QuadTreeTest {
+
+	private static final int POINTS = 20_000;
+	private static final int QUERIES = 200;
+
+	private final Random random = new Random(11);
+	private final List<double[]> points = new ArrayList<>();
+	private final QuadTree<double[]> tree = new QuadTree<>(new PointFormat());
+
+	public static void main(String[] args) throws Exception {
+		var app = new QuadTreeTest();
+		app.test1_insert();
+		app.test2_queries();
+		app.test3_remove_half();
+		app.test2_queries();
+		System.out.printf("%n ==> QuadTree answers match brute force. <== %n");
+	}
+
+	private void test1_insert() throws Exception {
+		for (int i = 0; i < POINTS; i++) {
+			//every tenth point lands on an earlier one, the tree must not split forever
+			double[] p = i % 10 == 9 ? points.get(random.nextInt(i)).clone()
+					: new double[]{random.nextDouble() * 5000 - 1000, random.nextDouble() * 3000 - 500};
+			points.add(p);
+			tree.insert(p);
+		}
+		if (tree.size() != POINTS)
+			throw new Exception("Error: tree should hold " + POINTS + " points, has " + tree.size());
+	}
+
+	private void test2_queries() throws Exception {
+		for (int q = 0; q < QUERIES; q++) {
+			double x = random.nextDouble() * 6000 - 1500;
+			double y = random.nextDouble() * 4000 - 1000;
+			List<double[]> byDistance = new ArrayList<>(points);
+			byDistance.sort(Comparator.comparingDouble(p -> distance(p, x, y)));
+			for (int k : new int[]{1, 7, 40}) checkNearest(x, y, k, byDistance);
+			double w = random.nextDouble() * 400;
+			double h = random.nextDouble() * 400;
+			checkRange(x, y, x + w, y + h);
+		}
+		if (tree.nearest(0, 0) == null)
+			throw new Exception("Error: nearest on a non empty tree returned null.");
+	}
+
+	private void test3_remove_half() throws Exception {
+		Collections.shuffle(points, random);
+		List<double[]> removed = new ArrayList<>(points.subList(0, POINTS / 2));
+		points.subList(0, POINTS / 2).clear();
+		for (double[] p : removed)
+			if (!tree.remove(p)) throw new Exception("Error: remove did not find " + Arrays.toString(p));
+		if (tree.size() != points.size())
+			throw new Exception("Error: tree should hold " + points.size() + " points after removing, has " + tree.size());
+		if (tree.remove(removed.get(0)))
+			throw new Exception("Error: a point was removed twice.");
+	}
+
+	//distances are compared rather than points, ties may come back in any order
+	private void checkNearest(double x, double y, int k, List<double[]> expected) throws Exception {
+		List<double[]> found = tree.nearest(x, y, k);
+		if (found.size() != Math.min(k, points.size()))
+			throw new Exception("Error: " + k + " nearest returned " + found.size() + " points.");
+		Set<double[]> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < found.size(); i++) {
+			if (!seen.add(found.get(i)))
+				throw new Exception("Error: " + k + " nearest returned a point twice.");
+			if (distance(found.get(i), x, y) != distance(expected.get(i), x, y))
+				throw new Exception("Error: neighbour " + i + " of (" + x + ", " + y + ") is at " + distance(found.get(i), x, y)
+						+ ", brute force says " + distance(expected.get(i), x, y));
+		}
+	}
+
+	private void checkRange(double minX, double minY, double maxX, double maxY) throws Exception {
+		Set<double[]> found = Collections.newSetFromMap(new IdentityHashMap<>());
+		found.addAll(tree.range(minX, minY, maxX, maxY));
+		int expected = 0;
+		for (double[] p : points) {
+			if (p[0] < minX || p[0] > maxX || p[1] < minY || p[1] > maxY) continue;
+			expected++;
+			if (!found.contains(p))
+				throw new Exception("Error: range misses " + Arrays.toString(p));
+		}
+		if (found.size() != expected)
+			throw new Exception("Error: range returned " + found.size() + " points, brute force " + expected);
+	}
+
+	private static double distance(double[] p, double x, double y) {
+		double dx = p[0] - x;
+		double dy = p[1] - y;
+		return dx * dx + dy * dy;
+	}
+
+	//points are double[] {x, y}, compared by identity
+	private static class PointFormat implements NodeFormat<double[]> {
+		@Override
+		public double[] create(String name, double x, double y) {
+			return new double[]{x, y};
+		}
+
+		@Override
+		public String getName(double[] node) {
+			return Arrays.toString(node);
+		}
+
+		@Override
+		public double getX(double[] node) {
+			return node[0];
+		}
+
+		@Override
+		public double getY(double[] node) {
+			return node[1];
+		}
+	}
+}
@@ -0,0 +1,126 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+//headless route lookups: loads a .graph file and answers from;to queries, one per line,
+//from a file or stdin. queries run in parallel on a worker pool and results are printed
+//in input order as from;to;total;src-dest name weight|... or from;to;-1;reason.
+//a GraphSnapshot is queried straight from the mapped file instead of being loaded.
+//--table computes a DistanceTable first, worth it for many queries on a small map
+//usage: java RouteQueryCli map.graph|map.snapshot [queries|-] [--threads n] [--table]
+public class RouteQueryCli {
+
+    private final Predicate<String> known;
+    private final BiFunction<String, String, PathResult<String>> search;
+
+    public RouteQueryCli(Graph<String> graph) {
+        this.known = graph.getNodes()::contains;
+        this.search = graph::findShortestPath;
+    }
+
+    public RouteQueryCli(DistanceTable<String> table) {
+        this.known = table::contains;
+        this.search = table::findShortestPath;
+    }
+
+    public RouteQueryCli(MappedGraph mapped) {
+        this.known = name -> mapped.indexOf(name) >= 0;
+        this.search = mapped::findShortestPath;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String graphFile = null;
+        String queryFile = "-";
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean table = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--table")) table = true;
+            else if (graphFile == null) graphFile = args[i];
+            else queryFile = args[i];
+        }
+        if (graphFile == null || threads < 1) {
+            System.err.println("usage: java RouteQueryCli map.graph|map.snapshot [queries|-] [--threads n] [--table]");
+            System.exit(2);
+        }
+        Path path = Path.of(graphFile);
+        boolean snapshot = GraphSnapshot.isSnapshot(path);
+        MappedGraph mapped = snapshot ? GraphSnapshot.open(path) : null;
+        RouteQueryCli cli;
+        if (snapshot && !table) {
+            cli = new RouteQueryCli(mapped);
+        } else {
+            Graph<String> graph;
+            if (snapshot) {
+                graph = new ListGraph<>();
+                mapped.load(graph, NodeFormat.names());
+            } else {
+                graph = new GraphLoader<>(NodeFormat.names()).load(path);
+            }
+            cli = table ? new RouteQueryCli(DistanceTable.compute(graph)) : new RouteQueryCli(graph);
+        }
+        Reader reader = queryFile.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Path.of(queryFile), StandardCharsets.UTF_8);
+        try (mapped; BufferedReader in = new BufferedReader(reader, 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            cli.run(in, out, threads);
+        }
+    }
+
+    //the graph is only read here, so the workers can share it without locking.
+    //at most threads * 64 queries are in flight, the oldest is written before the next is read
+    public void run(BufferedReader in, Writer out, int threads) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        int window = threads * 64;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String query = line;
+                pending.add(pool.submit(() -> answer(query)));
+                if (pending.size() >= window) write(pending.poll(), out);
+            }
+            while (!pending.isEmpty()) write(pending.poll(), out);
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void write(Future<String> result, Writer out) throws IOException, InterruptedException {
+        try {
+            out.write(result.get());
+            out.write('\n');
+        } catch (ExecutionException e) {
+            throw new IOException("Query failed", e.getCause());
+        }
+    }
+
+    public String answer(String query) {
+        int split = query.indexOf(';');
+        if (split < 0) return query + ";-1;expected from;to";
+        String from = query.substring(0, split).trim();
+        String to = query.substring(split + 1).trim();
+        String prefix = from + ";" + to + ";";
+        if (!known.test(from)) return prefix + "-1;unknown place " + from;
+        if (!known.test(to)) return prefix + "-1;unknown place " + to;
+        PathResult<String> result = search.apply(from, to);
+        if (!result.exists()) return prefix + "-1;no path";
+        StringBuilder sb = new StringBuilder(prefix).append(result.getTotalWeight()).append(';');
+        String separator = "";
+        for (Edge<String> e : result.getPath()) {
+            sb.append(separator).append(e.getSrc()).append('-').append(e.getDestination())
+                    .append(' ').append(e.getName()).append(' ').append(e.getWeight());
+            separator = "|";
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,11 @@
+//told about a running shortest path search, called on the searching thread after every settled node.
+//used together with an isCancelled check to show progress and stop long searches, see ShortestPath
+@FunctionalInterface
+public interface SearchListener {
+
+    void settled(int nodesVisited);
+
+    static SearchListener none() {
+        return nodesVisited -> {};
+    }
+}
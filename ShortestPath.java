@@ -0,0 +1,75 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+//Dijkstra search over any Graph, stops as soon as the target node is settled.
+//with a Heuristic it becomes A*, the queue is ordered by cost so far plus the estimate to the target.
+//costs are summed in longs so long paths of heavy edges can't wrap around to negative.
+//a caller can watch the search with a SearchListener and stop it with an isCancelled check
+public class ShortestPath {
+
+    private ShortestPath()
+    {}
+
+    //returns the cheapest path from -> to
+    public static <T> PathResult<T> find(Graph<T> graph, T from, T to) {
+        return find(graph, from, to, Heuristic.zero());
+    }
+
+    public static <T> PathResult<T> find(Graph<T> graph, T from, T to, Heuristic<T> heuristic) {
+        return find(graph, from, to, heuristic, SearchListener.none(), () -> false);
+    }
+
+    //isCancelled is checked before each node is settled, a stopped search returns PathResult.cancelled
+    public static <T> PathResult<T> find(Graph<T> graph, T from, T to, Heuristic<T> heuristic,
+                                         SearchListener listener, BooleanSupplier isCancelled) {
+        if (!graph.getNodes().contains(from) || !graph.getNodes().contains(to)) return PathResult.none();
+        Map<T, Long> dist = new HashMap<>();
+        Map<T, Edge<T>> via = new HashMap<>();
+        Set<T> settled = new HashSet<>();
+        PriorityQueue<Entry<T>> queue = new PriorityQueue<>();
+        dist.put(from, 0L);
+        queue.add(new Entry<>(from, 0, heuristic.estimate(from, to)));
+        //nodes settled and edges relaxed, reported in the result
+        int[] work = new int[2];
+        while (!queue.isEmpty()) {
+            if (isCancelled.getAsBoolean()) return PathResult.cancelled(work[0], work[1]);
+            Entry<T> entry = queue.poll();
+            T where = entry.node;
+            //stale entries are skipped instead of decreasing keys in the heap
+            if (!settled.add(where)) continue;
+            work[0]++;
+            listener.settled(work[0]);
+            if (where.equals(to)) return PathResult.gather(from, to, via, work[0], work[1]);
+            graph.forEachEdge(where, e -> {
+                work[1]++;
+                T next = e.getDestination();
+                if (settled.contains(next)) return;
+                long cost = entry.cost + e.getWeight();
+                Long known = dist.get(next);
+                if (known == null || cost < known) {
+                    dist.put(next, cost);
+                    via.put(next, e);
+                    queue.add(new Entry<>(next, cost, cost + heuristic.estimate(next, to)));
+                }
+            });
+        }
+        return PathResult.none(work[0], work[1]);
+    }
+
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        private final T node;
+        private final long cost;
+        private final long priority;
+
+        Entry(T node, long cost, long priority) {
+            this.node = node;
+            this.cost = cost;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            return Long.compare(priority, other.priority);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Collection;
+import java.util.List;
+
+//keeps a QuadTree of the nodes in step with add and remove, for finding the place under a
+//click and for snapping coordinates to the nearest node before routing.
+//nodes added to or removed from the wrapped graph directly are not seen.
+//the tree is guarded by this graph's lock, a query running at the same time as an edit on
+//another thread sees the tree before or after the whole edit
+public class SpatialGraph<T> extends ForwardingGraph<T> {
+
+    private final QuadTree<T> index;
+
+    //indexes the nodes graph already has
+    public SpatialGraph(Graph<T> graph, NodeFormat<T> format) {
+        super(graph);
+        index = new QuadTree<>(format);
+        for (T node : graph.getNodes()) index.insert(node);
+    }
+
+    @Override
+    public synchronized void add(T node) {
+        boolean added = !graph.getNodes().contains(node);
+        graph.add(node);
+        if (added) index.insert(node);
+    }
+
+    @Override
+    public synchronized void remove(T node) {
+        graph.remove(node);
+        index.remove(node);
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<T> nodes) {
+        graph.removeAll(nodes);
+        for (T node : nodes) index.remove(node);
+    }
+
+    //closest node to x, y, null if the graph is empty
+    public synchronized T nearest(double x, double y) {
+        return index.nearest(x, y);
+    }
+
+    //up to k nodes, closest first
+    public synchronized List<T> nearest(double x, double y, int k) {
+        return index.nearest(x, y, k);
+    }
+
+    //nodes inside the rectangle, edges included
+    public synchronized List<T> within(double minX, double minY, double maxX, double maxY) {
+        return index.range(minX, minY, maxX, maxY);
+    }
+
+    //cheapest path between the nodes closest to two points
+    public PathResult<T> findShortestPath(double fromX, double fromY, double toX, double toY) {
+        T from = nearest(fromX, fromY);
+        T to = nearest(toX, toY);
+        if (from == null || to == null) return PathResult.none();
+        return graph.findShortestPath(from, to);
+    }
+}
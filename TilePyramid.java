@@ -0,0 +1,280 @@
+import javafx.beans.value.ChangeListener;
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+//Map image cut into square tiles at several resolutions, for backgrounds too big to load whole.
+//a pyramid is a directory with tiles.properties (width, height, tileSize, levels) and the tiles
+//as <level>/<col>_<row>.png. level 0 is the full image, every level above is half as big,
+//up to one that fits in a single tile.
+//tiles are loaded in the background the first time they are asked for and kept in an LRU
+//cache, the least recently drawn are dropped once their pixels take more than the memory budget.
+//a tile that failed to load is tried again when asked for RETRY_MILLIS later. an evicted tile
+//that is still loading is cancelled and counts against the budget until its load has stopped.
+//java TilePyramid map.png map.tiles 256 builds one from an image
+public class TilePyramid {
+
+    private static final String DESCRIPTOR = "tiles.properties";
+    private static final long RETRY_MILLIS = 5000;
+
+    private final Path dir;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int levels;
+    private final long budget;
+
+    private final Map<Long, Image> cache = new LinkedHashMap<>(64, 0.75f, true);
+    //when a tile was first seen failed, by cache key
+    private final Map<Long, Long> failed = new HashMap<>();
+    private long used;
+    //part of used held by evicted tiles whose cancelled loads haven't stopped yet
+    private long releasing;
+    private long evictions;
+
+    private Runnable onLoaded = () -> {};
+
+    private TilePyramid(Path dir, Properties descriptor, long budget) {
+        this.dir = dir;
+        this.width = Integer.parseInt(descriptor.getProperty("width"));
+        this.height = Integer.parseInt(descriptor.getProperty("height"));
+        this.tileSize = Integer.parseInt(descriptor.getProperty("tileSize"));
+        this.levels = Integer.parseInt(descriptor.getProperty("levels"));
+        this.budget = budget;
+        if (width < 1 || height < 1 || tileSize < 1 || levels < 1) throw new IllegalArgumentException("Bad " + DESCRIPTOR);
+    }
+
+    //the image name of a map file, file:map.tiles, names a pyramid if the directory has a descriptor
+    public static boolean isPyramid(String imageName) {
+        return Files.isRegularFile(path(imageName).resolve(DESCRIPTOR));
+    }
+
+    //budget is the bytes of decoded pixels the cache may hold
+    public static TilePyramid open(String imageName, long budget) throws IOException {
+        Path dir = path(imageName);
+        Properties descriptor = new Properties();
+        try (Reader in = Files.newBufferedReader(dir.resolve(DESCRIPTOR))) {
+            descriptor.load(in);
+        }
+        return new TilePyramid(dir, descriptor, budget);
+    }
+
+    private static Path path(String imageName) {
+        return Path.of(imageName.startsWith("file:") ? imageName.substring("file:".length()) : imageName);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    //runs on the FX thread each time a background load finishes
+    public void setOnLoaded(Runnable onLoaded) {
+        this.onLoaded = onLoaded;
+    }
+
+    //columns and rows of tiles at level
+    public int cols(int level) {
+        return (int) Math.ceil(Math.ceil(width / (double) (1L << level)) / tileSize);
+    }
+
+    public int rows(int level) {
+        return (int) Math.ceil(Math.ceil(height / (double) (1L << level)) / tileSize);
+    }
+
+    //the tile, possibly still loading or failed, or null if it lies outside the level
+    public Image tile(int level, int col, int row) {
+        if (level < 0 || level >= levels || col < 0 || row < 0 || col >= cols(level) || row >= rows(level)) return null;
+        long key = key(level, col, row);
+        Image tile = cache.get(key);
+        if (tile != null && !retry(key, tile)) return tile;
+        String url = dir.resolve(Integer.toString(level)).resolve(col + "_" + row + ".png").toUri().toString();
+        Image loading = new Image(url, true);
+        //an evicted tile must not ask for a redraw, that would request and load it again
+        loading.progressProperty().addListener((observable, old, progress) -> {
+            if (progress.doubleValue() >= 1 && !loading.isError() && cache.containsKey(key)) onLoaded.run();
+        });
+        Image replaced = cache.put(key, loading);
+        if (replaced == null) used += bytes();
+        else release(replaced, false);
+        while (used - releasing > budget && cache.size() > 1) {
+            Iterator<Map.Entry<Long, Image>> eldest = cache.entrySet().iterator();
+            Map.Entry<Long, Image> entry = eldest.next();
+            eldest.remove();
+            failed.remove(entry.getKey());
+            release(entry.getValue(), true);
+            evictions++;
+        }
+        return loading;
+    }
+
+    //cancels the tile if it is still loading. with counted its bytes leave used once the load has stopped
+    private void release(Image tile, boolean counted) {
+        if (tile.getProgress() >= 1 || tile.isError()) {
+            if (counted) used -= bytes();
+            return;
+        }
+        long bytes = counted ? bytes() : 0;
+        releasing += bytes;
+        boolean[] stopped = {false};
+        ChangeListener<Object> done = (observable, old, now) -> {
+            if (stopped[0] || (tile.getProgress() < 1 && !tile.isError())) return;
+            stopped[0] = true;
+            used -= bytes;
+            releasing -= bytes;
+        };
+        tile.progressProperty().addListener(done);
+        tile.errorProperty().addListener(done);
+        tile.cancel();
+        done.changed(null, null, null);
+    }
+
+    //a failed tile is kept for RETRY_MILLIS, so a missing file isn't asked for on every frame
+    private boolean retry(long key, Image tile) {
+        if (!tile.isError()) return false;
+        long now = System.currentTimeMillis();
+        Long since = failed.putIfAbsent(key, now);
+        if (since == null || now - since < RETRY_MILLIS) return false;
+        failed.remove(key);
+        return true;
+    }
+
+    //a tile already in memory and fully loaded, or null
+    public Image loaded(int level, int col, int row) {
+        Image tile = cache.get(key(level, col, row));
+        return tile != null && tile.getProgress() >= 1 && !tile.isError() ? tile : null;
+    }
+
+    public void clear() {
+        for (Image tile : cache.values()) release(tile, true);
+        cache.clear();
+        failed.clear();
+    }
+
+    //every tile is counted as a full one, edge tiles are smaller
+    private long bytes() {
+        return 4L * tileSize * tileSize;
+    }
+
+    private static long key(int level, int col, int row) {
+        return (long) level << 56 | (long) col << 28 | row;
+    }
+
+    //cuts image into a pyramid in dir, every level after the first is made from the one below.
+    //a source that fits in a quarter of the heap is decoded once. a bigger one is read a strip of
+    //tiles at a time, but readers of formats like PNG decode from the top again for every strip,
+    //so that takes time quadratic in the height and is only for images that can't be held
+    public static void build(Path image, Path dir, int tileSize) throws IOException {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        int width;
+        int height;
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            if (in == null) throw new IOException("Can't read " + image);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new IOException("Unknown image format " + image);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+                Files.createDirectories(dir.resolve("0"));
+                BufferedImage whole = 4L * width * height < Runtime.getRuntime().maxMemory() / 4 ? reader.read(0) : null;
+                for (int y = 0, row = 0; y < height; y += tileSize, row++) {
+                    int h = Math.min(tileSize, height - y);
+                    BufferedImage strip;
+                    if (whole != null) {
+                        strip = whole.getSubimage(0, y, width, h);
+                    } else {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        param.setSourceRegion(new Rectangle(0, y, width, h));
+                        strip = reader.read(0, param);
+                    }
+                    for (int x = 0, col = 0; x < width; x += tileSize, col++) {
+                        BufferedImage tile = strip.getSubimage(x, 0, Math.min(tileSize, width - x), strip.getHeight());
+                        write(tile, dir, 0, col, row);
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+        int level = 0;
+        int w = width;
+        int h = height;
+        while (w > tileSize || h > tileSize) {
+            level++;
+            w = (w + 1) / 2;
+            h = (h + 1) / 2;
+            Files.createDirectories(dir.resolve(Integer.toString(level)));
+            for (int row = 0; row * tileSize < h; row++)
+                for (int col = 0; col * tileSize < w; col++)
+                    write(shrink(dir, level - 1, col, row, tileSize, w, h), dir, level, col, row);
+        }
+        Properties descriptor = new Properties();
+        descriptor.setProperty("width", Integer.toString(width));
+        descriptor.setProperty("height", Integer.toString(height));
+        descriptor.setProperty("tileSize", Integer.toString(tileSize));
+        descriptor.setProperty("levels", Integer.toString(level + 1));
+        try (Writer out = Files.newBufferedWriter(dir.resolve(DESCRIPTOR))) {
+            descriptor.store(out, "TilePyramid of " + image.getFileName());
+        }
+    }
+
+    //the four tiles below col, row on the level beneath, scaled to half size.
+    //levelWidth and levelHeight are the pixel size of the level being made
+    private static BufferedImage shrink(Path dir, int below, int col, int row, int tileSize, int levelWidth, int levelHeight) throws IOException {
+        int w = Math.min(tileSize, levelWidth - col * tileSize);
+        int h = Math.min(tileSize, levelHeight - row * tileSize);
+        BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int i = 0; i < 4; i++) {
+            File part = dir.resolve(Integer.toString(below)).resolve((2 * col + (i & 1)) + "_" + (2 * row + (i >> 1)) + ".png").toFile();
+            if (!part.exists()) continue;
+            BufferedImage source = ImageIO.read(part);
+            g.drawImage(source, (i & 1) * tileSize / 2, (i >> 1) * tileSize / 2,
+                    (source.getWidth() + 1) / 2, (source.getHeight() + 1) / 2, null);
+        }
+        g.dispose();
+        return tile;
+    }
+
+    private static void write(BufferedImage tile, Path dir, int level, int col, int row) throws IOException {
+        ImageIO.write(tile, "png", dir.resolve(Integer.toString(level)).resolve(col + "_" + row + ".png").toFile());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java TilePyramid <image> <directory> [tile size]");
+            System.exit(2);
+        }
+        int tileSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        build(Path.of(args[0]), Path.of(args[1]), tileSize);
+    }
+}
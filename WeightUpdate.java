@@ -0,0 +1,30 @@
+//one new weight for the connection between from and to, applied in batches by Graph.setConnectionWeights
+public class WeightUpdate<T> {
+
+    private final T from;
+    private final T to;
+    private final int weight;
+
+    public WeightUpdate(T from, T to, int weight) {
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+    }
+
+    public T getFrom() {
+        return from;
+    }
+
+    public T getTo() {
+        return to;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return from + " - " + to + " weight " + weight;
+    }
+}
@@ -0,0 +1,62 @@
+import pathfinder.bench.GraphOps;
+
+import java.util.Collection;
+
+//ConcurrentGraph for the benchmarks in pathfinder.bench, nodes are Integers created once
+public class ConcurrentGraphOps implements GraphOps {
+
+    private static final String NAME = "road";
+
+    private final Integer[] ids;
+    private ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+
+    public ConcurrentGraphOps(int nodes) {
+        ids = new Integer[nodes];
+        for (int i = 0; i < nodes; i++) ids[i] = i;
+    }
+
+    @Override
+    public void clear() {
+        graph = new ConcurrentGraph<>();
+    }
+
+    @Override
+    public void add(int node) {
+        graph.add(ids[node]);
+    }
+
+    @Override
+    public void connect(int node1, int node2, int weight) {
+        graph.connect(ids[node1], ids[node2], NAME, weight);
+    }
+
+    @Override
+    public Collection<?> edgesFrom(int node) {
+        return graph.getEdgesFrom(ids[node]);
+    }
+
+    @Override
+    public Object edgeBetween(int node1, int node2) {
+        return graph.getEdgeBetween(ids[node1], ids[node2]);
+    }
+
+    @Override
+    public void disconnect(int node1, int node2) {
+        graph.disconnect(ids[node1], ids[node2]);
+    }
+
+    @Override
+    public void remove(int node) {
+        graph.remove(ids[node]);
+    }
+
+    @Override
+    public boolean pathExists(int from, int to) {
+        return graph.pathExists(ids[from], ids[to]);
+    }
+
+    @Override
+    public Object path(int from, int to) {
+        return graph.getPath(ids[from], ids[to]);
+    }
+}
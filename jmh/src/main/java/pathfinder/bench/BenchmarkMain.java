@@ -0,0 +1,19 @@
+package pathfinder.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+//Main of benchmarks.jar, takes the usual JMH options and always adds the gc profiler
+//so every run reports gc.alloc.rate.norm (bytes allocated per operation).
+//  java -jar benchmarks.jar GraphBenchmark.getPath -p nodes=10000
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
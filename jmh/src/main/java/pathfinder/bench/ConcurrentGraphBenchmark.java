@@ -0,0 +1,70 @@
+package pathfinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Path queries on one shared ConcurrentGraph while a single thread keeps disconnecting and
+//reconnecting its roads. the query threads of the group are set with -tg, e.g. -tg 1,1 then
+//-tg 2,1, -tg 4,1 ..., query throughput should grow with them as long as there are free cores.
+//keep the editor count at 1, two editors could disconnect the same road at once
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class ConcurrentGraphBenchmark {
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Object query(Shared g, Cursor c) {
+        return g.graph.path(c.random.nextInt(g.nodes), c.random.nextInt(g.nodes));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void edit(Shared g, Cursor c) {
+        int e = c.random.nextInt(g.synthetic.edgeCount());
+        int from = g.synthetic.from(e);
+        int to = g.synthetic.to(e);
+        g.graph.disconnect(from, to);
+        g.graph.connect(from, to, g.synthetic.weight(e));
+    }
+
+    //the graph every thread of a group works on
+    @State(Scope.Group)
+    public static class Shared {
+
+        @Param({"10000"})
+        public int nodes;
+
+        @Param({"4"})
+        public int degree;
+
+        @Param({"ConcurrentGraphOps"})
+        public String impl;
+
+        SyntheticGraph synthetic;
+        GraphOps graph;
+
+        @Setup(Level.Trial)
+        public void build() {
+            synthetic = new SyntheticGraph(nodes, degree, 42);
+            graph = GraphOps.load(impl, nodes);
+            synthetic.fill(graph);
+        }
+    }
+
+    //random numbers of one thread, seeded differently in each
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private static final AtomicLong SEEDS = new AtomicLong(7);
+
+        final SplittableRandom random = new SplittableRandom(SEEDS.getAndIncrement());
+    }
+}
@@ -0,0 +1,133 @@
+package pathfinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+//Graph operations on synthetic graphs of 10^2 to 10^6 nodes at three densities, see GraphState.
+//the writes are undone after every call in a Level.Invocation teardown so each call sees the
+//same graph. that adds some timer overhead to them, compare writes with earlier runs of the
+//same benchmark rather than with the reads.
+//the largest graphs need a few GB of heap, hence -Xmx8g
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class GraphBenchmark {
+
+    // --- reads
+
+    @Benchmark
+    public void getEdgesFrom(GraphState g, Blackhole bh) {
+        for (Object e : g.graph.edgesFrom(g.node(g.advance()))) bh.consume(e);
+    }
+
+    @Benchmark
+    public Object getEdgeBetween(GraphState g) {
+        int e = g.edge(g.advance());
+        return g.graph.edgeBetween(g.synthetic.to(e), g.synthetic.from(e));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean pathExists(GraphState g) {
+        int i = g.advance();
+        return g.graph.pathExists(g.node(i), g.other(i));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getPath(GraphState g) {
+        int i = g.advance();
+        return g.graph.path(g.node(i), g.other(i));
+    }
+
+    // --- writes, each with its own copy of the graph
+
+    @Benchmark
+    public void add(NewNode g) {
+        g.graph.add(g.nodes);
+    }
+
+    @Benchmark
+    public void connect(NewConnection g) {
+        g.graph.connect(g.node1, g.node2, g.weight);
+    }
+
+    @Benchmark
+    public void disconnect(Connection g) {
+        g.graph.disconnect(g.node1, g.node2);
+    }
+
+    @Benchmark
+    public void remove(Node g) {
+        g.graph.remove(g.node);
+    }
+
+    //removes the spare node after add
+    public static class NewNode extends GraphState {
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            graph.remove(nodes);
+        }
+    }
+
+    //two nodes that aren't connected
+    public static class NewConnection extends GraphState {
+        int node1;
+        int node2;
+        int weight;
+
+        @Setup(Level.Invocation)
+        public void pick() {
+            int i = advance();
+            node1 = node(i);
+            node2 = other(i);
+            while (node1 == node2 || synthetic.connected(node1, node2)) node2 = (node2 + 1) % nodes;
+            weight = 1 + (i & 63);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            graph.disconnect(node1, node2);
+        }
+    }
+
+    //a connection of the synthetic graph
+    public static class Connection extends GraphState {
+        int node1;
+        int node2;
+        int weight;
+
+        @Setup(Level.Invocation)
+        public void pick() {
+            int e = edge(advance());
+            node1 = synthetic.from(e);
+            node2 = synthetic.to(e);
+            weight = synthetic.weight(e);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            graph.connect(node1, node2, weight);
+        }
+    }
+
+    //a node of the synthetic graph, put back with its connections after remove
+    public static class Node extends GraphState {
+        int node;
+
+        @Setup(Level.Invocation)
+        public void pick() {
+            node = node(advance());
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            synthetic.restore(graph, node);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pathfinder.bench;
+
+import java.util.Collection;
+
+//The graph under test with int nodes.
+//JMH can't generate code for classes in the default package and a named package can't
+//import the default package, so the benchmarks reach the graphs through this interface.
+//the implementations are ListGraphOps and ConcurrentGraphOps in the default package, see load
+public interface GraphOps {
+
+    void clear();
+
+    void add(int node);
+
+    void connect(int node1, int node2, int weight);
+
+    Collection<?> edgesFrom(int node);
+
+    Object edgeBetween(int node1, int node2);
+
+    void disconnect(int node1, int node2);
+
+    void remove(int node);
+
+    boolean pathExists(int from, int to);
+
+    Object path(int from, int to);
+
+    //the nodes are boxed up front so the benchmarks don't measure Integer.valueOf
+    static GraphOps load(String className, int nodes) {
+        try {
+            return (GraphOps) Class.forName(className).getConstructor(int.class).newInstance(nodes);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't load " + className, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pathfinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+
+//A synthetic graph loaded into the engine named by impl, built once per fork.
+//impl names a GraphOps class so another engine can be measured against ListGraph with -p impl=...
+@State(Scope.Thread)
+public class GraphState {
+
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"100", "10000", "1000000"})
+    public int nodes;
+
+    @Param({"2", "8", "32"})
+    public int degree;
+
+    @Param({"ListGraphOps"})
+    public String impl;
+
+    SyntheticGraph synthetic;
+    GraphOps graph;
+
+    //random nodes, node pairs and existing connections, cycled through by the benchmarks
+    private final int[] node = new int[QUERIES];
+    private final int[] other = new int[QUERIES];
+    private final int[] edge = new int[QUERIES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build() {
+        synthetic = new SyntheticGraph(nodes, degree, 42);
+        //one spare id for the add benchmark
+        graph = GraphOps.load(impl, nodes + 1);
+        synthetic.fill(graph);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            node[i] = random.nextInt(nodes);
+            other[i] = random.nextInt(nodes);
+            edge[i] = random.nextInt(synthetic.edgeCount());
+        }
+    }
+
+    int advance() {
+        int i = next;
+        next = (next + 1) & (QUERIES - 1);
+        return i;
+    }
+
+    int node(int i) {
+        return node[i];
+    }
+
+    int other(int i) {
+        return other[i];
+    }
+
+    int edge(int i) {
+        return edge[i];
+    }
+}
@@ -0,0 +1,106 @@
+package pathfinder.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//Random undirected graph with n nodes and about degree connections per node.
+//node i is connected to i + 1 so every pair of nodes has a path, the rest of the
+//connections are random chords. the same n, degree and seed always give the same graph
+public final class SyntheticGraph {
+
+    private final int nodes;
+    private final int[] from;
+    private final int[] to;
+    private final int[] weight;
+
+    //neighbours of node i are targets[offsets[i]] until offsets[i + 1]
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    public SyntheticGraph(int nodes, int degree, long seed) {
+        if (nodes < 3) throw new IllegalArgumentException("At least 3 nodes");
+        if (degree < 2) throw new IllegalArgumentException("Degree must be at least 2");
+        this.nodes = nodes;
+        SplittableRandom random = new SplittableRandom(seed);
+        long chords = Math.min((long) nodes * (degree - 2) / 2, (long) nodes * (nodes - 1) / 2 - nodes);
+        long[] packed = new long[Math.toIntExact(nodes + chords)];
+        int count = 0;
+        for (int i = 0; i < nodes; i++) packed[count++] = pack(i, (i + 1) % nodes);
+        while (count < packed.length) {
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            if (a != b) packed[count++] = pack(a, b);
+        }
+        Arrays.sort(packed);
+        int unique = 0;
+        for (int i = 0; i < packed.length; i++)
+            if (i == 0 || packed[i] != packed[i - 1]) packed[unique++] = packed[i];
+
+        from = new int[unique];
+        to = new int[unique];
+        weight = new int[unique];
+        int[] degrees = new int[nodes];
+        for (int i = 0; i < unique; i++) {
+            from[i] = (int) (packed[i] >>> 32);
+            to[i] = (int) packed[i];
+            weight[i] = 1 + random.nextInt(100);
+            degrees[from[i]]++;
+            degrees[to[i]]++;
+        }
+
+        offsets = new int[nodes + 1];
+        for (int i = 0; i < nodes; i++) offsets[i + 1] = offsets[i] + degrees[i];
+        targets = new int[offsets[nodes]];
+        weights = new int[offsets[nodes]];
+        int[] fill = Arrays.copyOf(offsets, nodes);
+        for (int i = 0; i < unique; i++) {
+            targets[fill[from[i]]] = to[i];
+            weights[fill[from[i]]++] = weight[i];
+            targets[fill[to[i]]] = from[i];
+            weights[fill[to[i]]++] = weight[i];
+        }
+    }
+
+    //smaller id in the high half so a-b and b-a pack the same
+    private static long pack(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    public int edgeCount() {
+        return from.length;
+    }
+
+    public int from(int edge) {
+        return from[edge];
+    }
+
+    public int to(int edge) {
+        return to[edge];
+    }
+
+    public int weight(int edge) {
+        return weight[edge];
+    }
+
+    public boolean connected(int node1, int node2) {
+        for (int i = offsets[node1]; i < offsets[node1 + 1]; i++) if (targets[i] == node2) return true;
+        return false;
+    }
+
+    //adds every node and connection to ops
+    public void fill(GraphOps ops) {
+        for (int i = 0; i < nodes; i++) ops.add(i);
+        for (int i = 0; i < from.length; i++) ops.connect(from[i], to[i], weight[i]);
+    }
+
+    //puts node back with all its connections after it has been removed
+    public void restore(GraphOps ops, int node) {
+        ops.add(node);
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) ops.connect(node, targets[i], weights[i]);
+    }
+}